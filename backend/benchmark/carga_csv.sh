@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# Benchmark de la importación del catálogo histórico: COPY vs INSERT por lotes (csv.import.modo)
+#
+# Uso (contra una base de pruebas, NO en producción; vacía sismosh antes de cada corrida):
+#   BASE_URL=http://localhost:8080 PSQL="psql -d sismos_bench" FILAS=400000 backend/benchmark/carga_csv.sh
+#
+# Genera un CSV sintético con el formato del catálogo del SSN (4 líneas de cabecera, 10 columnas,
+# referencias con comas entre comillas) y lo envía a POST /api/upload/csv/stream con cada modo.
+# Cada modo se corre dos veces: la primera con sismosh vacía (todo se inserta) y la segunda con el
+# mismo archivo (todo es duplicado: mide ON CONFLICT DO NOTHING sobre la clave natural).
+# Se reporta el tiempo total de curl, el resumen que devuelve el servidor (incluye su propio tiempo)
+# y las filas de sismosh, que no deben crecer en la segunda corrida.
+# Aún no se ha ejecutado: csv.import.modo queda en "lotes" y COPY es opcional hasta tener estos números.
+
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+PSQL=${PSQL:-psql}
+FILAS=${FILAS:-400000}
+ARCHIVO=${ARCHIVO:-/tmp/catalogo_sintetico.csv}
+
+generar() {
+    awk -v filas="$FILAS" 'BEGIN {
+        srand(7305);
+        split("JAL,GRO,OAX,CHIS,MICH,COL,VER,PUE", abreviaturas, ",");
+        print "SERVICIO SISMOLOGICO NACIONAL";
+        print "Catalogo de sismos (sintetico)";
+        print "";
+        print "Fecha,Hora,Magnitud,Latitud,Longitud,Profundidad,Referencia de localizacion,Fecha UTC,Hora UTC,Estatus";
+        inicio = 0;
+        paso = 3600 * 24 * 365 * 125 / filas;
+        for (i = 0; i < filas; i++) {
+            t = int(inicio + i * paso);
+            anio = 1900 + int(t / 31536000);
+            dia = int((t % 31536000) / 86400);
+            mes = int(dia / 31) + 1; if (mes > 12) mes = 12;
+            d = dia % 28 + 1;
+            h = int((t % 86400) / 3600); m = int((t % 3600) / 60); s = t % 60;
+            # Gutenberg-Richter, b = 1 desde 2.5
+            mag = 2.5 - log(1 - rand()) / log(10);
+            e = int(rand() * 8) + 1;
+            printf "%04d-%02d-%02d,%02d:%02d:%02d,%.1f,%.4f,%.4f,%.1f,\"%d km al SUR de Ciudad, %s\",%04d-%02d-%02d,%02d:%02d:%02d,revisado\n",
+                anio, mes, d, h, m, s, mag, 14.5 + rand() * 6, -105.5 + rand() * 11, rand() * 120,
+                int(rand() * 90) + 1, abreviaturas[e], anio, mes, d, (h + 6) % 24, m, s;
+        }
+    }' > "$ARCHIVO"
+}
+
+cargar() {
+    local modo=$1
+    local etiqueta=$2
+    local inicio fin
+    inicio=$(date +%s%N)
+    respuesta=$(curl -sS -X POST --data-binary @"$ARCHIVO" -H 'Content-Type: text/csv' \
+        "$BASE_URL/api/upload/csv/stream?modo=$modo")
+    fin=$(date +%s%N)
+    printf '%-5s %-10s %8d ms  %s\n' "$modo" "$etiqueta" $(((fin - inicio) / 1000000)) "$respuesta"
+    echo "      filas en sismosh: $($PSQL -tA -c 'SELECT count(*) FROM sismosh')"
+}
+
+generar
+echo "CSV: $ARCHIVO ($FILAS filas, $(du -h "$ARCHIVO" | cut -f1))"
+
+for modo in lotes copy; do
+    $PSQL -q -c 'TRUNCATE sismosh'
+    cargar "$modo" vacia
+    cargar "$modo" duplicados
+done
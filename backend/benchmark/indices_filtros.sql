@@ -0,0 +1,103 @@
+-- Benchmark de índices para los filtros de sismos (migración V4__indices_filtros.sql)
+--
+-- Uso (en una base de pruebas, NO en producción):
+--   psql -d sismos_bench -v ON_ERROR_STOP=1 -f backend/benchmark/indices_filtros.sql > resultado.txt
+--
+-- Crea el esquema "bench" con 5M filas sintéticas con la distribución aproximada del catálogo del SSN
+-- (magnitudes con Gutenberg-Richter b = 1 desde 2.5, ~3% >= 4, concentradas en los estados del Pacífico), y ejecuta cada forma
+-- de consulta de SismoSpecification + PaginacionKeyset dos veces: solo con los índices que declaraban
+-- las entidades (antes) y con los de V4 (después). Se reporta EXPLAIN (ANALYZE, BUFFERS) de cada una;
+-- comparar "Execution Time", el tipo de recorrido y "Buffers: shared hit/read".
+-- Al final se prueba un índice parcial de magnitud >= 4 que no está en las migraciones: solo se agrega
+-- si los planes muestran que Q4/Q5 lo usan, también con el plan genérico de la consulta con parámetro.
+--
+-- Formas de consulta (todas con ORDER BY fecha_hora DESC, id DESC LIMIT 100):
+--   Q1 sin filtros, primera página                 -> (fecha_hora, id)
+--   Q2 estado                                      -> (estado, fecha_hora, id)
+--   Q3 estado + rango de fechas                    -> (estado, fecha_hora, id)
+--   Q4 magnitud >= 4                               -> (fecha_hora, id), magnitud como filtro
+--   Q5 magnitud >= 5 + rango de profundidad        -> (fecha_hora, id), magnitud y profundidad como filtro
+--   Q6 página profunda por cursor, estado          -> (estado, fecha_hora, id), mismo costo que Q2
+--   Q7 reporte anual (rango amplio de fechas)      -> BRIN (fecha_hora)
+-- La profundidad sola no justifica índice: casi siempre es un rango poco selectivo (0-100 km)
+-- y se evalúa como filtro sobre el recorrido por fecha.
+
+\timing on
+SET client_min_messages = warning;
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+SET search_path = bench;
+
+CREATE TABLE sismosh (
+    id VARCHAR(255) PRIMARY KEY,
+    fecha_hora TIMESTAMPTZ NOT NULL,
+    magnitud DOUBLE PRECISION NOT NULL,
+    latitud DOUBLE PRECISION NOT NULL,
+    longitud DOUBLE PRECISION NOT NULL,
+    profundidad DOUBLE PRECISION NOT NULL,
+    referencia_localizacion VARCHAR(500) NOT NULL,
+    estado VARCHAR(20)
+);
+
+-- 5M filas en orden cronológico (como se importa el CSV histórico), 1990 a la fecha
+INSERT INTO sismosh (id, fecha_hora, magnitud, latitud, longitud, profundidad, referencia_localizacion, estado)
+SELECT
+    md5(g::text),
+    timestamptz '1990-01-01' + (g * interval '1 second' * (extract(epoch FROM now() - timestamptz '1990-01-01') / 5000000)),
+    round((2.5 + least(-ln(1 - random()) / ln(10), 5.5))::numeric, 1),
+    14 + random() * 18,
+    -118 + random() * 32,
+    round((random() * random() * 200)::numeric, 1),
+    'km al SUR de LUGAR, ' || (ARRAY['OAX', 'OAX', 'OAX', 'GRO', 'GRO', 'CHIS', 'CHIS', 'MICH', 'JAL', 'BC',
+                                      'COL', 'VER', 'PUE', 'SON', 'BCS'])[1 + g % 15],
+    (ARRAY['OAXACA', 'OAXACA', 'OAXACA', 'GUERRERO', 'GUERRERO', 'CHIAPAS', 'CHIAPAS', 'MICHOACAN', 'JALISCO',
+           'BAJA_CALIFORNIA', 'COLIMA', 'VERACRUZ', 'PUEBLA', 'SONORA', 'BAJA_CALIFORNIA_SUR'])[1 + g % 15]
+FROM generate_series(1, 5000000) g;
+
+-- Índices que declaraban las entidades antes de V4
+CREATE INDEX idx_sismoh_fecha_hora ON sismosh (fecha_hora);
+CREATE INDEX idx_sismoh_magnitud ON sismosh (magnitud);
+VACUUM ANALYZE sismosh;
+
+SELECT pg_size_pretty(pg_total_relation_size('sismosh')) AS tamano_tabla, count(*) AS filas,
+       round(100.0 * count(*) FILTER (WHERE magnitud >= 4) / count(*), 1) AS pct_magnitud_4
+FROM sismosh;
+
+-- Cursor de una página profunda (200,000 filas dentro del estado) para Q6
+SELECT fecha_hora AS cursor_fecha, id AS cursor_id FROM sismosh
+WHERE estado = 'OAXACA' ORDER BY fecha_hora DESC, id DESC OFFSET 200000 LIMIT 1 \gset
+
+\echo '==================== ANTES ===================='
+\ir indices_filtros_consultas.sql
+
+\echo '==================== V4 ===================='
+CREATE INDEX idx_sismoh_fecha_hora_id ON sismosh (fecha_hora, id);
+DROP INDEX idx_sismoh_fecha_hora;
+CREATE INDEX idx_sismoh_estado_fecha_hora_id ON sismosh (estado, fecha_hora, id);
+CREATE INDEX brin_sismoh_fecha_hora ON sismosh USING brin (fecha_hora) WITH (pages_per_range = 32);
+ANALYZE sismosh;
+
+SELECT indexrelname AS indice, pg_size_pretty(pg_relation_size(indexrelid)) AS tamano
+FROM pg_stat_user_indexes WHERE schemaname = 'bench' ORDER BY indexrelname;
+
+\ir indices_filtros_consultas.sql
+
+\echo '==================== CANDIDATO: parcial magnitud >= 4 ===================='
+CREATE INDEX idx_sismoh_sensibles_fecha_hora_id ON sismosh (fecha_hora, id) WHERE magnitud >= 4;
+ANALYZE sismosh;
+
+\ir indices_filtros_consultas.sql
+
+-- Hibernate envía la magnitud como parámetro: con un plan genérico el índice parcial no se puede usar
+\echo 'Q4 con parámetro: plan genérico y plan con el valor'
+PREPARE q4(double precision) AS
+SELECT * FROM sismosh WHERE magnitud >= $1 ORDER BY fecha_hora DESC, id DESC LIMIT 100;
+SET plan_cache_mode = force_generic_plan;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE q4(4);
+SET plan_cache_mode = force_custom_plan;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE q4(4);
+RESET plan_cache_mode;
+DEALLOCATE q4;
+
+DROP SCHEMA bench CASCADE;
@@ -0,0 +1,38 @@
+-- Formas de consulta de SismoSpecification + PaginacionKeyset; lo incluye indices_filtros.sql
+
+\echo 'Q1 sin filtros'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM sismosh ORDER BY fecha_hora DESC, id DESC LIMIT 100;
+
+\echo 'Q2 estado'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM sismosh WHERE estado = 'GUERRERO' ORDER BY fecha_hora DESC, id DESC LIMIT 100;
+
+\echo 'Q3 estado + rango de fechas'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM sismosh
+WHERE estado = 'CHIAPAS' AND fecha_hora BETWEEN timestamptz '2017-09-01' AND timestamptz '2017-10-01'
+ORDER BY fecha_hora DESC, id DESC LIMIT 100;
+
+\echo 'Q4 magnitud >= 4'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM sismosh WHERE magnitud >= 4 ORDER BY fecha_hora DESC, id DESC LIMIT 100;
+
+\echo 'Q5 magnitud >= 5 + profundidad 0-40 km'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM sismosh
+WHERE magnitud >= 5 AND magnitud <= 9 AND profundidad >= 0 AND profundidad <= 40
+ORDER BY fecha_hora DESC, id DESC LIMIT 100;
+
+\echo 'Q6 estado, página profunda por cursor'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM sismosh
+WHERE estado = 'OAXACA'
+  AND (fecha_hora < :'cursor_fecha' OR (fecha_hora = :'cursor_fecha' AND id < :'cursor_id'))
+ORDER BY fecha_hora DESC, id DESC LIMIT 100;
+
+\echo 'Q7 reporte anual'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT estado, count(*) FROM sismosh
+WHERE fecha_hora BETWEEN timestamptz '2020-01-01' AND timestamptz '2021-01-01'
+GROUP BY estado;
@@ -0,0 +1,59 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la extracción en una pasada contra el parser DOM de Jsoup sobre una página guardada del SSN.
+ * Con el perfilador gc (configurado en build.gradle) también se reportan las asignaciones por operación.
+ *
+ * <pre>
+ * ./gradlew jmh
+ * ./gradlew jmh -PssnPaginas=/ruta/a/pagina1.html,/ruta/a/pagina2.html
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SsnRowExtractorBenchmark {
+
+    @Param("src/test/resources/ssn/ultimos-sismos.html")
+    public String pagina;
+
+    private String html;
+
+    @Setup
+    public void cargar() throws IOException {
+        html = Files.readString(Path.of(pagina), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int unaPasada(Blackhole blackhole) {
+        return SsnRowExtractor.extraer(html, blackhole::consume);
+    }
+
+    @Benchmark
+    public int dom(Blackhole blackhole) {
+        return SsnRowExtractor.extraerConDom(Jsoup.parse(html), blackhole::consume);
+    }
+}
@@ -0,0 +1,102 @@
+package ipn.mx.isc.sismosapp.backend.configurations;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Aplica los scripts versionados de classpath:db/migraciones (V{n}__descripcion.sql)
+ * que Hibernate no puede expresar con ddl-auto: deduplicación, índices únicos, parciales, etc.
+ * Se ejecuta después de que Hibernate actualiza el esquema y registra cada versión aplicada.
+ */
+@Component
+public class MigracionesSql {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigracionesSql.class);
+    private static final String UBICACION = "classpath:db/migraciones/V*__*.sql";
+    private static final Pattern NOMBRE = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    // Evita que dos instancias apliquen la misma migración al mismo tiempo
+    private static final long LOCK_ID = 7_305_001L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // La dependencia con EntityManagerFactory garantiza que el esquema de Hibernate ya existe
+    public MigracionesSql(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void aplicarMigraciones() throws IOException {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS migraciones_sql (
+                version INTEGER PRIMARY KEY,
+                descripcion VARCHAR(200) NOT NULL,
+                aplicada_en TIMESTAMPTZ NOT NULL DEFAULT now()
+            )
+            """);
+
+        Resource[] scripts = new PathMatchingResourcePatternResolver().getResources(UBICACION);
+        Arrays.sort(scripts, Comparator.comparingInt(MigracionesSql::version));
+
+        for (Resource script : scripts) {
+            aplicar(script);
+        }
+    }
+
+    private void aplicar(Resource script) {
+        int version = version(script);
+        String descripcion = descripcion(script);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_ID);
+
+            Integer aplicada = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM migraciones_sql WHERE version = ?", Integer.class, version
+            );
+            if (aplicada != null && aplicada > 0) {
+                return;
+            }
+
+            long inicio = System.currentTimeMillis();
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                ScriptUtils.executeSqlScript(connection, script);
+                return null;
+            });
+            jdbcTemplate.update(
+                "INSERT INTO migraciones_sql (version, descripcion) VALUES (?, ?)", version, descripcion
+            );
+            logger.info("Migración V{} ({}) aplicada en {} ms", version, descripcion,
+                System.currentTimeMillis() - inicio);
+        });
+    }
+
+    private static int version(Resource script) {
+        Matcher matcher = NOMBRE.matcher(script.getFilename());
+        if (!matcher.matches()) {
+            throw new IllegalStateException("Nombre de migración inválido: " + script.getFilename());
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static String descripcion(Resource script) {
+        Matcher matcher = NOMBRE.matcher(script.getFilename());
+        return matcher.matches() ? matcher.group(2).replace('_', ' ') : script.getFilename();
+    }
+}
@@ -1,21 +1,26 @@
 package ipn.mx.isc.sismosapp.backend.controller;
 
-import com.opencsv.exceptions.CsvException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import ipn.mx.isc.sismosapp.backend.model.dto.CursorPagina;
+import ipn.mx.isc.sismosapp.backend.model.entities.ImportacionCsv;
 import ipn.mx.isc.sismosapp.backend.model.entities.SismoH;
 import ipn.mx.isc.sismosapp.backend.repository.SismoHRepository;
 import ipn.mx.isc.sismosapp.backend.service.CsvUploadService;
+import ipn.mx.isc.sismosapp.backend.service.ImportacionCsvService;
+import ipn.mx.isc.sismosapp.backend.specification.PaginacionKeyset;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -29,7 +34,10 @@ public class CsvUploadController {
     @Autowired
     private SismoHRepository sismoHRepository;
 
-    @Operation(summary = "Subir archivo CSV del SSN")
+    @Autowired
+    private ImportacionCsvService importacionCsvService;
+
+    @Operation(summary = "Subir archivo CSV del SSN", description = "Crea una importación; su avance se consulta en /api/importaciones/{id}")
     @PostMapping("/upload/csv")
     public ResponseEntity<?> uploadCsv(@RequestParam("file") MultipartFile file) {
         try {
@@ -37,18 +45,20 @@ public class CsvUploadController {
                 return ResponseEntity.badRequest().body(new ErrorResponse("El archivo está vacío"));
             }
 
-            if (!file.getOriginalFilename().endsWith(".csv")) {
-                return ResponseEntity.badRequest().body(new ErrorResponse("Solo se permiten archivos CSV"));
+            ImportacionCsv importacion = importacionCsvService.crear(file.getOriginalFilename(), file.getSize());
+            try (InputStream entrada = file.getInputStream()) {
+                importacionCsvService.recibirFragmento(importacion.getId(), 0, entrada);
             }
+            importacionCsvService.iniciar(importacion.getId());
 
-            // Procesar de forma asíncrona
-            csvUploadService.procesarCsvAsync(file);
-            
-            return ResponseEntity.ok(new SuccessResponse(
+            return ResponseEntity.ok(new ImportacionResponse(
                 "Archivo recibido. El procesamiento ha iniciado en segundo plano. " +
-                "Esto puede tomar varios minutos. Verifica el progreso en /api/sismosh/stats"
+                "Verifica el progreso en /api/importaciones/" + importacion.getId(),
+                importacion.getId()
             ));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(
                 new ErrorResponse("Error procesando el archivo: " + e.getMessage())
@@ -56,6 +66,27 @@ public class CsvUploadController {
         }
     }
 
+    @Operation(
+        summary = "Importar CSV del SSN en streaming",
+        description = "Recibe el CSV como cuerpo de la petición (Content-Type: text/csv) y lo importa mientras se recibe; " +
+            "responde al terminar con el resumen. modo (copy o lotes) reemplaza a csv.import.modo para esta carga. " +
+            "Ej: curl -X POST --data-binary @catalogo.csv -H 'Content-Type: text/csv' ..."
+    )
+    @PostMapping(value = "/upload/csv/stream", consumes = "text/csv")
+    public ResponseEntity<?> uploadCsvStream(HttpServletRequest request,
+                                             @RequestParam(required = false) String modo) {
+        try {
+            String resumen = modo != null
+                ? csvUploadService.procesarCsv(request.getInputStream(), "stream", CsvUploadService.ModoImportacion.desde(modo))
+                : csvUploadService.procesarCsv(request.getInputStream(), "stream");
+            return ResponseEntity.ok(new SuccessResponse(resumen));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Error leyendo el CSV: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/upload/form")
     public ResponseEntity<String> showUploadForm() {
         String html = """
@@ -138,10 +169,20 @@ public class CsvUploadController {
                                 resultDiv.className = 'success';
                                 resultDiv.innerHTML = `
                                     <strong>✓ ${data.message}</strong><br><br>
-                                    El archivo se está procesando. Actualiza las estadísticas cada minuto para ver el progreso.
+                                    <span id="progreso">El archivo se está procesando...</span>
                                 `;
-                                // Auto-actualizar stats cada 5 segundos
-                                setInterval(checkStats, 5000);
+                                // Avance de la importación y stats cada 5 segundos hasta que termine
+                                const intervalo = setInterval(async () => {
+                                    checkStats();
+                                    const estado = await (await fetch(`/api/importaciones/${data.id}`)).json();
+                                    document.getElementById('progreso').innerHTML =
+                                        `${estado.estado}: ${estado.lineasProcesadas.toLocaleString()} líneas, ` +
+                                        `${estado.filasInsertadas.toLocaleString()} guardadas` +
+                                        (estado.mensaje ? `<br>${estado.mensaje}` : '');
+                                    if (estado.estado === 'COMPLETADA' || estado.estado === 'FALLIDA') {
+                                        clearInterval(intervalo);
+                                    }
+                                }, 5000);
                             } else {
                                 resultDiv.className = 'error';
                                 resultDiv.innerHTML = `<strong>✗ Error:</strong><br>${data.mensaje}`;
@@ -166,32 +207,53 @@ public class CsvUploadController {
     @GetMapping("/sismosh/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
         long total = sismoHRepository.count();
-        
-        List<SismoH> recientes = sismoHRepository.findAll(
-            PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "fechaHora"))
-        ).getContent();
-        
-        List<SismoH> antiguos = sismoHRepository.findAll(
-            PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, "fechaHora"))
-        ).getContent();
 
         Map<String, Object> stats = new HashMap<>();
         stats.put("total", total);
-        stats.put("masReciente", recientes.isEmpty() ? null : recientes.get(0));
-        stats.put("masAntiguo", antiguos.isEmpty() ? null : antiguos.get(0));
+        stats.put("masReciente", sismoHRepository.findFirstByOrderByFechaHoraDesc().orElse(null));
+        stats.put("masAntiguo", sismoHRepository.findFirstByOrderByFechaHoraAsc().orElse(null));
 
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Paginación por cursor (header X-Cursor-Siguiente); page solo se usa sin cursor, para saltar a una página
+     */
     @GetMapping("/sismosh")
-    public ResponseEntity<List<SismoH>> getSismos(
+    public ResponseEntity<?> getSismos(
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "100") int size
+        @RequestParam(defaultValue = "100") int size,
+        @RequestParam(required = false) String cursor
     ) {
-        var result = sismoHRepository.findAll(
-            PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "fechaHora"))
-        );
-        return ResponseEntity.ok(result.getContent());
+        if (size <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El tamaño de página debe ser mayor a 0"));
+        }
+        int limite = PaginacionKeyset.limitarTamano(size);
+
+        CursorPagina posicion;
+        try {
+            posicion = CursorPagina.decodificar(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        Slice<SismoH> pagina;
+        if (posicion != null) {
+            Specification<SismoH> spec = PaginacionKeyset.despuesDe(posicion);
+            pagina = PaginacionKeyset.recortar(
+                sismoHRepository.findBy(spec, consulta -> consulta.sortBy(PaginacionKeyset.ORDEN).limit(limite + 1).all()),
+                limite
+            );
+        } else {
+            pagina = sismoHRepository.findAllBy(PageRequest.of(page, limite, PaginacionKeyset.ORDEN));
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (pagina.hasNext() && pagina.hasContent()) {
+            SismoH ultimo = pagina.getContent().get(pagina.getNumberOfElements() - 1);
+            builder.header("X-Cursor-Siguiente", new CursorPagina(ultimo.getFechaHora(), ultimo.getId()).codificar());
+        }
+        return builder.body(pagina.getContent());
     }
 
     @GetMapping("/sismosh/view")
@@ -256,6 +318,8 @@ public class CsvUploadController {
                 <script>
                     let currentPage = 0;
                     const pageSize = 50;
+                    // cursores[n] lleva a la página n; sin cursor conocido se pide por número de página
+                    let cursores = [null];
 
                     async function loadStats() {
                         try {
@@ -285,8 +349,15 @@ public class CsvUploadController {
                         currentPage = page;
                         
                         try {
-                            const response = await fetch(`/api/sismosh?page=${page}&size=${pageSize}`);
+                            const url = cursores[page]
+                                ? `/api/sismosh?size=${pageSize}&cursor=${encodeURIComponent(cursores[page])}`
+                                : `/api/sismosh?page=${page}&size=${pageSize}`;
+                            const response = await fetch(url);
                             const data = await response.json();
+                            const siguiente = response.headers.get('X-Cursor-Siguiente');
+                            if (siguiente) {
+                                cursores[page + 1] = siguiente;
+                            }
                             
                             if (data.length === 0 && page > 0) {
                                 alert('No hay más datos');
@@ -309,7 +380,7 @@ public class CsvUploadController {
                             
                             document.getElementById('pageNum').textContent = page + 1;
                             document.getElementById('prevBtn').disabled = page === 0;
-                            document.getElementById('nextBtn').disabled = data.length < pageSize;
+                            document.getElementById('nextBtn').disabled = !siguiente;
                             
                         } catch (error) {
                             document.getElementById('tableBody').innerHTML = 
@@ -336,4 +407,5 @@ public class CsvUploadController {
 
     private record ErrorResponse(String mensaje) {}
     private record SuccessResponse(String message) {}
+    private record ImportacionResponse(String message, String id) {}
 }
\ No newline at end of file
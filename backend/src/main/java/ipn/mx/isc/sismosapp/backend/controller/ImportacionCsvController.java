@@ -0,0 +1,79 @@
+package ipn.mx.isc.sismosapp.backend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import ipn.mx.isc.sismosapp.backend.model.entities.ImportacionCsv;
+import ipn.mx.isc.sismosapp.backend.service.ImportacionCsvService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Importaciones del catálogo histórico por fragmentos. Flujo:
+ * POST /api/importaciones → PUT /{id}/contenido?offset=0,N,... (hasta enviar todo) → POST /{id}/procesar
+ * → GET /{id} para el avance. Si una subida se corta, GET /{id} devuelve bytesRecibidos: el siguiente offset.
+ */
+@RestController
+@RequestMapping("/api/importaciones")
+@Tag(name = "Importaciones CSV", description = "Importación del catálogo del SSN por fragmentos, con avance y reanudación")
+public class ImportacionCsvController {
+
+    private final ImportacionCsvService importacionCsvService;
+
+    public ImportacionCsvController(ImportacionCsvService importacionCsvService) {
+        this.importacionCsvService = importacionCsvService;
+    }
+
+    @Operation(summary = "Crear una importación", description = "tamano (bytes) es opcional; si se envía, el archivo debe llegar completo")
+    @PostMapping
+    public ResponseEntity<?> crear(@RequestParam String nombre, @RequestParam(required = false) Long tamano) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(importacionCsvService.crear(nombre, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(
+        summary = "Enviar un fragmento del archivo",
+        description = "El cuerpo son los bytes del fragmento; offset debe ser igual a bytesRecibidos. " +
+            "Ej: curl -X PUT --data-binary @parte1 -H 'Content-Type: application/octet-stream' '.../contenido?offset=0'"
+    )
+    @PutMapping("/{id}/contenido")
+    public ResponseEntity<?> recibirFragmento(@PathVariable String id, @RequestParam long offset, HttpServletRequest request) {
+        try {
+            return responder(importacionCsvService.recibirFragmento(id, offset, request.getInputStream()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error recibiendo el fragmento: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Procesar la importación", description = "Con el archivo completo, o para reintentar una fallida desde su último avance")
+    @PostMapping("/{id}/procesar")
+    public ResponseEntity<?> procesar(@PathVariable String id) {
+        try {
+            return responder(importacionCsvService.iniciar(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Estado y avance de una importación")
+    @GetMapping("/{id}")
+    public ResponseEntity<?> obtener(@PathVariable String id) {
+        return responder(importacionCsvService.obtener(id));
+    }
+
+    private ResponseEntity<?> responder(Optional<ImportacionCsv> importacion) {
+        return importacion.<ResponseEntity<?>>map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
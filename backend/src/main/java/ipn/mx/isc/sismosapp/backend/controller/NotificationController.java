@@ -21,7 +21,9 @@ public class NotificationController {
 
     @PostMapping("/register")
     public ResponseEntity<Void> registrar(@RequestBody DeviceTokenRequest request) {
-        notificationService.registrarToken(request.getToken(), request.getPlatform());
+        notificationService.registrarToken(
+            request.getToken(), request.getPlatform(), request.getEstado(), request.getMagnitudMinima()
+        );
         return ResponseEntity.ok().build();
     }
 }
@@ -7,15 +7,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import ipn.mx.isc.sismosapp.backend.model.dto.CursorPagina;
 import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
 import ipn.mx.isc.sismosapp.backend.model.dto.SismoFilterDTO;
 import ipn.mx.isc.sismosapp.backend.model.requests.SismoRequest;
+import ipn.mx.isc.sismosapp.backend.model.responses.RespuestaPrecalculada;
+import ipn.mx.isc.sismosapp.backend.model.responses.SincronizacionSismos;
+import ipn.mx.isc.sismosapp.backend.model.responses.VistaMapa;
 import ipn.mx.isc.sismosapp.backend.service.SismoService;
+import ipn.mx.isc.sismosapp.backend.service.SismoStreamService;
+import ipn.mx.isc.sismosapp.backend.specification.PaginacionKeyset;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -24,12 +34,19 @@ import java.util.List;
 @Tag(name = "Sismos", description = "API para gestión y consulta de sismos en tiempo real")
 public class SismoController {
 
+    public static final String HEADER_CURSOR_SIGUIENTE = "X-Cursor-Siguiente";
+
     @Autowired
     private SismoService sismoService;
 
+    @Autowired
+    private SismoStreamService sismoStreamService;
+
     @Operation(
         summary = "Obtener sismos con paginación",
-        description = "Retorna una lista de sismos ordenados por fecha descendente. Usa cache Redis para la primera página."
+        description = "Retorna una lista de sismos ordenados por fecha descendente. Usa cache Redis para la primera página, " +
+            "que se sirve ya serializada (gzip si el cliente lo acepta) con ETag para peticiones condicionales. " +
+            "Si hay más resultados, el header X-Cursor-Siguiente trae el cursor de la página siguiente."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -39,22 +56,217 @@ public class SismoController {
                 mediaType = "application/json",
                 schema = @Schema(implementation = SismoDTO.class)
             )
-        )
+        ),
+        @ApiResponse(responseCode = "304", description = "La lista no cambió desde el ETag enviado")
     })
     @GetMapping
-    public ResponseEntity<List<SismoDTO>> obtenerTodosLosSismos(
-        @Parameter(description = "Número de página (inicia en 0)", example = "0")
+    public ResponseEntity<?> obtenerTodosLosSismos(
+        @Parameter(description = "Número de página (inicia en 0). Obsoleto: usar cursor", example = "0")
         @RequestParam(defaultValue = "0") int page,
         @Parameter(description = "Cantidad de sismos por página", example = "100")
-        @RequestParam(defaultValue = "100") int size
+        @RequestParam(defaultValue = "100") int size,
+        @Parameter(description = "Cursor de la página siguiente (header X-Cursor-Siguiente de la respuesta anterior)")
+        @RequestParam(required = false) String cursor,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
-        List<SismoDTO> sismos = sismoService.obtenerTodosLosSismos(page, size);
-        return ResponseEntity.ok(sismos);
+        if (size <= 0) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("El tamaño de página debe ser mayor a 0"));
+        }
+        int limite = PaginacionKeyset.limitarTamano(size);
+
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                return responderPagina(sismoService.obtenerPaginaSismos(cursor, limite));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+            }
+        }
+
+        if (page == 0) {
+            RespuestaPrecalculada respuesta = sismoService.obtenerRespuestaRecientes(limite);
+            if (respuesta != null) {
+                return responderPrecalculada(respuesta, ifNoneMatch, acceptEncoding);
+            }
+        }
+
+        List<SismoDTO> sismos = sismoService.obtenerTodosLosSismos(page, limite);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (sismos.size() == limite) {
+            SismoDTO ultimo = sismos.get(sismos.size() - 1);
+            builder.header(HEADER_CURSOR_SIGUIENTE, new CursorPagina(ultimo.getFechaHora(), ultimo.getId()).codificar());
+        }
+        return builder.body(sismos);
+    }
+
+    /**
+     * Contenido de la página con el cursor de la siguiente en el header, si la hay
+     */
+    private ResponseEntity<List<SismoDTO>> responderPagina(Slice<SismoDTO> pagina) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (pagina.hasNext() && pagina.hasContent()) {
+            SismoDTO ultimo = pagina.getContent().get(pagina.getNumberOfElements() - 1);
+            builder.header(HEADER_CURSOR_SIGUIENTE, new CursorPagina(ultimo.getFechaHora(), ultimo.getId()).codificar());
+        }
+        return builder.body(pagina.getContent());
+    }
+
+    private ResponseEntity<byte[]> responderPrecalculada(RespuestaPrecalculada respuesta,
+                                                         String ifNoneMatch, String acceptEncoding) {
+        if (coincideEtag(ifNoneMatch, respuesta.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(respuesta.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .eTag(respuesta.etag())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (respuesta.cursorSiguiente() != null) {
+            builder.header(HEADER_CURSOR_SIGUIENTE, respuesta.cursorSiguiente());
+        }
+
+        if (aceptaGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(respuesta.gzip());
+        }
+        return builder.body(respuesta.json());
+    }
+
+    private boolean coincideEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String valor : ifNoneMatch.split(",")) {
+            String candidato = valor.trim();
+            if (candidato.startsWith("W/")) {
+                candidato = candidato.substring(2);
+            }
+            if (candidato.equals("*") || candidato.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String valor : acceptEncoding.split(",")) {
+            String[] partes = valor.trim().split(";");
+            if (!partes[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            // gzip;q=0 significa que el cliente lo rechaza explícitamente
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parametro.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Operation(
+        summary = "Sincronización incremental de sismos",
+        description = "Retorna solo los cambios posteriores al cursor del cliente: sismos nuevos y ids eliminados. " +
+            "Sin cursor retorna los sismos recientes y el cursor actual. Si hayMas es true, repetir con el cursor devuelto."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Cambios obtenidos exitosamente",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = SincronizacionSismos.class)
+            )
+        )
+    })
+    @GetMapping("/since")
+    public ResponseEntity<SincronizacionSismos> obtenerCambios(
+        @Parameter(description = "Cursor devuelto por la petición anterior", example = "1532")
+        @RequestParam(required = false) Long cursor,
+        @Parameter(description = "Máximo de cambios por respuesta (hasta 1000)", example = "500")
+        @RequestParam(required = false) Integer limite
+    ) {
+        return ResponseEntity.ok(sismoService.obtenerCambios(cursor, limite));
+    }
+
+    @Operation(
+        summary = "Sismos de la ventana visible del mapa",
+        description = "Retorna los sismos dentro del rectángulo visible. Con zoom bajo o cuando hay demasiados " +
+            "para dibujar, retorna grupos por celda (posición promedio, total y magnitud máxima)."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Contenido de la ventana obtenido exitosamente",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = VistaMapa.class)
+            )
+        ),
+        @ApiResponse(responseCode = "400", description = "Ventana o zoom inválidos")
+    })
+    @GetMapping("/mapa")
+    public ResponseEntity<?> obtenerVistaMapa(
+        @Parameter(description = "Latitud sur de la ventana", example = "14.0") @RequestParam double latitudMin,
+        @Parameter(description = "Latitud norte de la ventana", example = "33.0") @RequestParam double latitudMax,
+        @Parameter(description = "Longitud oeste de la ventana", example = "-118.0") @RequestParam double longitudMin,
+        @Parameter(description = "Longitud este de la ventana", example = "-86.0") @RequestParam double longitudMax,
+        @Parameter(description = "Nivel de zoom del mapa", example = "5") @RequestParam int zoom,
+        @Parameter(description = "Magnitud mínima", example = "4.0") @RequestParam(required = false) Double magnitudMin
+    ) {
+        try {
+            return ResponseEntity.ok(sismoService.obtenerVistaMapa(
+                latitudMin, latitudMax, longitudMin, longitudMax, zoom, magnitudMin
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
     }
 
     @Operation(
         summary = "Stream de sismos en tiempo real",
-        description = "Establece una conexión SSE para recibir notificaciones de nuevos sismos en tiempo real"
+        description = "Establece una conexión SSE para recibir notificaciones de nuevos sismos en tiempo real. " +
+            "Cada evento 'sismos' trae la lista de sismos nuevos; con el header Last-Event-ID se reenvían los " +
+            "eventos perdidos, o un evento 'reinicio' si ya no están disponibles."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Conexión SSE establecida",
+            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)
+        )
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSismos(
+        @Parameter(description = "Id del último evento recibido, para reanudar")
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        Long ultimoEventoId = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                ultimoEventoId = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                ultimoEventoId = null;
+            }
+        }
+        return sismoStreamService.conectar(ultimoEventoId);
+    }
+
+    @Operation(
+        summary = "Filtrar sismos",
+        description = "Retorna los sismos que cumplen los filtros de magnitud, fecha, profundidad y estado, con paginación " +
+            "por cursor: si hay más resultados, el header X-Cursor-Siguiente trae el valor para el campo cursor."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -74,8 +286,7 @@ public class SismoController {
     @PostMapping("/filtrar")
     public ResponseEntity<?> filtrarSismos(@RequestBody SismoFilterDTO filtros) {
         try {
-            List<SismoDTO> sismos = sismoService.filtrarSismos(filtros);
-            return ResponseEntity.ok(sismos);
+            return responderPagina(sismoService.filtrarSismos(filtros));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(
                 new ErrorResponse(e.getMessage())
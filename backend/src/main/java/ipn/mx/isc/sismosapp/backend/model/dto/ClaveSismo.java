@@ -0,0 +1,30 @@
+package ipn.mx.isc.sismosapp.backend.model.dto;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
+
+import java.time.Instant;
+
+/**
+ * Clave natural de un sismo: fecha/hora, latitud, longitud y magnitud.
+ * La fecha se guarda como Instant para que dos offsets del mismo instante sean iguales.
+ */
+public record ClaveSismo(Instant fechaHora, Double latitud, Double longitud, Double magnitud) {
+
+    public static ClaveSismo de(Sismo sismo) {
+        return new ClaveSismo(
+            sismo.getFechaHora().toInstant(),
+            sismo.getLatitud(),
+            sismo.getLongitud(),
+            sismo.getMagnitud()
+        );
+    }
+
+    public static ClaveSismo de(SismoDTO sismo) {
+        return new ClaveSismo(
+            sismo.getFechaHora().toInstant(),
+            sismo.getLatitud(),
+            sismo.getLongitud(),
+            sismo.getMagnitud()
+        );
+    }
+}
@@ -0,0 +1,43 @@
+package ipn.mx.isc.sismosapp.backend.model.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de una página en el orden (fechaHora DESC, id DESC).
+ * Viaja al cliente como texto opaco (Base64 URL) y la siguiente página inicia justo después de ella.
+ */
+public record CursorPagina(OffsetDateTime fechaHora, String id) {
+
+    private static final char SEPARADOR = '|';
+
+    public String codificar() {
+        String valor = fechaHora.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null si no se envió cursor
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static CursorPagina decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            if (separador <= 0 || separador == valor.length() - 1) {
+                throw new IllegalArgumentException("Cursor de paginación inválido");
+            }
+            return new CursorPagina(
+                OffsetDateTime.parse(valor.substring(0, separador)),
+                valor.substring(separador + 1)
+            );
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+}
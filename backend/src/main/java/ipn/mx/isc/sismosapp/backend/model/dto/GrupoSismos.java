@@ -0,0 +1,19 @@
+package ipn.mx.isc.sismosapp.backend.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Sismos de una celda del mapa agrupados en un solo marcador
+ */
+@Schema(description = "Grupo de sismos cercanos para mostrar como un solo marcador")
+public record GrupoSismos(
+    @Schema(description = "Latitud promedio del grupo", example = "16.8")
+    double latitud,
+    @Schema(description = "Longitud promedio del grupo", example = "-99.9")
+    double longitud,
+    @Schema(description = "Cantidad de sismos en el grupo", example = "42")
+    long total,
+    @Schema(description = "Magnitud del sismo más fuerte del grupo", example = "5.1")
+    double magnitudMaxima
+) {
+}
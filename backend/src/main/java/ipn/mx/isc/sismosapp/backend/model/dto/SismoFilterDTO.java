@@ -38,9 +38,33 @@ public class SismoFilterDTO {
     @Schema(description = "Profundidad máxima en kilómetros", example = "100.0")
     private Double profundidadMax;
     
-    @Schema(description = "Número de página (inicia en 0)", example = "0")
+    @Schema(description = "Latitud sur del área de búsqueda", example = "15.0")
+    private Double latitudMin;
+    
+    @Schema(description = "Latitud norte del área de búsqueda", example = "19.0")
+    private Double latitudMax;
+    
+    @Schema(description = "Longitud oeste del área de búsqueda", example = "-102.0")
+    private Double longitudMin;
+    
+    @Schema(description = "Longitud este del área de búsqueda", example = "-96.0")
+    private Double longitudMax;
+    
+    @Schema(description = "Latitud del punto central para búsqueda por radio", example = "19.4326")
+    private Double latitudCentro;
+    
+    @Schema(description = "Longitud del punto central para búsqueda por radio", example = "-99.1332")
+    private Double longitudCentro;
+    
+    @Schema(description = "Radio de búsqueda en kilómetros alrededor del punto central", example = "150.0")
+    private Double radioKm;
+    
+    @Schema(description = "Número de página (inicia en 0). Obsoleto: usar cursor", example = "0")
     private Integer page = 0;
     
     @Schema(description = "Cantidad de resultados por página", example = "100")
     private Integer size = 100;
+    
+    @Schema(description = "Cursor de la página siguiente (header X-Cursor-Siguiente de la respuesta anterior)")
+    private String cursor;
 }
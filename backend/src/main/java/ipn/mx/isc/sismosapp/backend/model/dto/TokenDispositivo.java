@@ -0,0 +1,11 @@
+package ipn.mx.isc.sismosapp.backend.model.dto;
+
+/**
+ * Proyección de device_tokens con solo las columnas que necesita el envío
+ */
+public interface TokenDispositivo {
+
+    Long getId();
+
+    String getToken();
+}
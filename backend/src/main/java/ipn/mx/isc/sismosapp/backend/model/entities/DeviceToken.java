@@ -25,6 +25,22 @@ public class DeviceToken {
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Abreviatura del estado para el tópico regional (opcional)
+    @Column(length = 5)
+    private String estado;
+
+    // Nivel de magnitud del tópico mag-Nplus; null usa el nivel predeterminado
+    private Integer magnitudMinima;
+
+    // false mientras el token no esté suscrito a sus tópicos en FCM
+    @Column(nullable = false, columnDefinition = "boolean not null default false")
+    private boolean topicosSincronizados = false;
+
+    // Tópicos en los que FCM confirmó la suscripción, separados por coma; null en tokens registrados
+    // antes de llevar este registro
+    @Column(length = 500)
+    private String topicosSuscritos;
+
     public DeviceToken() {
     }
 
@@ -61,4 +77,36 @@ public class DeviceToken {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public Integer getMagnitudMinima() {
+        return magnitudMinima;
+    }
+
+    public void setMagnitudMinima(Integer magnitudMinima) {
+        this.magnitudMinima = magnitudMinima;
+    }
+
+    public boolean isTopicosSincronizados() {
+        return topicosSincronizados;
+    }
+
+    public void setTopicosSincronizados(boolean topicosSincronizados) {
+        this.topicosSincronizados = topicosSincronizados;
+    }
+
+    public String getTopicosSuscritos() {
+        return topicosSuscritos;
+    }
+
+    public void setTopicosSuscritos(String topicosSuscritos) {
+        this.topicosSuscritos = topicosSuscritos;
+    }
 }
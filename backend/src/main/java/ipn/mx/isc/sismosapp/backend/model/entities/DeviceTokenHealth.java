@@ -0,0 +1,34 @@
+package ipn.mx.isc.sismosapp.backend.model.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Salud de entrega de un token FCM.
+ * Solo existe para tokens que han fallado; un token sin registro se considera sano.
+ */
+@Entity
+@Table(name = "device_token_health")
+@Data
+@NoArgsConstructor
+public class DeviceTokenHealth {
+
+    @Id
+    private String token;
+
+    @Column(nullable = false)
+    private int fallosConsecutivos;
+
+    private OffsetDateTime ultimoFallo;
+
+    // Inicio de la racha actual de fallos; un éxito la reinicia
+    private OffsetDateTime primerFallo;
+
+    private OffsetDateTime ultimoExito;
+}
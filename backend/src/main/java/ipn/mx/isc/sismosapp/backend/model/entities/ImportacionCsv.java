@@ -0,0 +1,83 @@
+package ipn.mx.isc.sismosapp.backend.model.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Importación de un CSV del SSN a sismosh. El archivo se recibe por fragmentos en el directorio de
+ * importaciones y se procesa por tramos; al terminar cada tramo se guarda el avance (byte y línea
+ * donde empieza el siguiente), así que una importación interrumpida se retoma desde ese punto.
+ */
+@Entity
+@Table(name = "importaciones_csv", indexes = {
+    @Index(name = "idx_importaciones_csv_estado", columnList = "estado")
+})
+@Data
+@NoArgsConstructor
+public class ImportacionCsv {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false)
+    private String nombreArchivo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 12)
+    private EstadoImportacion estado = EstadoImportacion.RECIBIENDO;
+
+    // Tamaño anunciado por el cliente; si está, el archivo debe estar completo antes de procesarlo
+    private Long tamanoTotal;
+
+    @Column(nullable = false)
+    private long bytesRecibidos = 0;
+
+    // Punto de reanudación: fin del último tramo importado
+    @Column(nullable = false)
+    private long bytesProcesados = 0;
+
+    @Column(nullable = false)
+    private long lineasProcesadas = 0;
+
+    @Column(nullable = false)
+    private long filasLeidas = 0;
+
+    @Column(nullable = false)
+    private long filasInsertadas = 0;
+
+    @Column(nullable = false)
+    private long filasOmitidas = 0;
+
+    // Fin del lease de quien la tiene: el fragmento en curso (RECIBIENDO) o el proceso que la importa
+    // (PROCESANDO); si vence en PROCESANDO, se retoma
+    private OffsetDateTime bloqueadoHasta;
+
+    // Token de quien tiene el lease; sus actualizaciones solo aplican mientras no lo tome otro
+    @JsonIgnore
+    @Column(length = 36)
+    private String reclamo;
+
+    // Resumen al completar o error al fallar
+    @Column(length = 1000)
+    private String mensaje;
+
+    @Column(nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime terminadaEn;
+
+    // Último fragmento recibido; una recepción sin actividad se abandona
+    private OffsetDateTime actualizadaEn;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = OffsetDateTime.now();
+        actualizadaEn = createdAt;
+    }
+}
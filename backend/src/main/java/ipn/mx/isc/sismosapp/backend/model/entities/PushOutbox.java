@@ -0,0 +1,70 @@
+package ipn.mx.isc.sismosapp.backend.model.entities;
+
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush;
+import ipn.mx.isc.sismosapp.backend.model.enums.TipoPush;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Envío push pendiente, guardado en la misma transacción que los sismos que lo originan.
+ * Los workers de PushOutboxScheduler lo reclaman, lo envían y lo reintentan con backoff.
+ */
+@Entity
+@Table(name = "push_outbox", indexes = {
+    @Index(name = "idx_push_outbox_estado_siguiente", columnList = "estado, siguienteIntento")
+})
+@Data
+@NoArgsConstructor
+public class PushOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private TipoPush tipo;
+
+    // Lista de SismoDTO en JSON
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    // Umbral de magnitud con el que se generó la alerta (solo ALERTA)
+    private Double umbral;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private EstadoPush estado = EstadoPush.PENDIENTE;
+
+    @Column(nullable = false)
+    private int intentos = 0;
+
+    @Column(nullable = false)
+    private OffsetDateTime siguienteIntento;
+
+    // Fin del lease de un worker; si vence en PROCESANDO, otro worker lo reclama
+    private OffsetDateTime bloqueadoHasta;
+
+    // Identifica el reclamo vigente; las actualizaciones del worker solo aplican si sigue siendo suyo
+    @Column(length = 36)
+    private String reclamo;
+
+    @Column(length = 1000)
+    private String ultimoError;
+
+    @Column(nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime enviadoEn;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = OffsetDateTime.now();
+        if (siguienteIntento == null) {
+            siguienteIntento = createdAt;
+        }
+    }
+}
@@ -1,17 +1,23 @@
 package ipn.mx.isc.sismosapp.backend.model.entities;
 
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Generated;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "sismos", indexes = {
-    @Index(name = "idx_fecha_hora", columnList = "fechaHora"),
-    @Index(name = "idx_magnitud", columnList = "magnitud")
+    @Index(name = "idx_sismos_fecha_hora_id", columnList = "fechaHora, id"),
+    @Index(name = "idx_magnitud", columnList = "magnitud"),
+    @Index(name = "idx_sismos_latitud_longitud", columnList = "latitud, longitud"),
+    @Index(name = "idx_sismos_estado_fecha_hora_id", columnList = "estado, fechaHora, id"),
+    @Index(name = "uk_sismos_clave_natural", columnList = "fechaHora, latitud, longitud, magnitud", unique = true),
+    @Index(name = "uk_sismos_secuencia", columnList = "secuencia", unique = true)
 })
 @Data
 @NoArgsConstructor
@@ -43,9 +49,19 @@ public class Sismo {
     @Column(nullable = false, length = 10)
     private String fuente = "SSN";
 
+    // Estado obtenido del lugar al ingresar el sismo; null si el lugar no termina en un estado conocido
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private EstadoMexicano estado;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Orden de ingesta, asignado por la BD (sismos_secuencia_seq); cursor de la sincronización incremental
+    @Generated
+    @Column(insertable = false, updatable = false)
+    private Long secuencia;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,31 @@
+package ipn.mx.isc.sismosapp.backend.model.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Generated;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Registro de un sismo eliminado, para que los clientes con sincronización incremental lo quiten.
+ * Comparte la secuencia de ingesta de sismos, así altas y bajas quedan en un solo orden.
+ */
+@Entity
+@Table(name = "sismos_eliminados", indexes = {
+    @Index(name = "uk_sismos_eliminados_secuencia", columnList = "secuencia", unique = true)
+})
+@Data
+@NoArgsConstructor
+public class SismoEliminado {
+
+    @Id
+    private String id;
+
+    @Generated
+    @Column(insertable = false, updatable = false)
+    private Long secuencia;
+
+    @Column(nullable = false)
+    private OffsetDateTime eliminadoEn;
+}
@@ -1,5 +1,6 @@
 package ipn.mx.isc.sismosapp.backend.model.entities;
 
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,9 +11,11 @@ import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "sismosh", indexes = {
-    @Index(name = "idx_sismoh_fecha_hora", columnList = "fechaHora"),
+    @Index(name = "idx_sismoh_fecha_hora_id", columnList = "fechaHora, id"),
     @Index(name = "idx_sismoh_magnitud", columnList = "magnitud"),
-    @Index(name = "idx_sismoh_fecha_utc", columnList = "fechaUtc")
+    @Index(name = "idx_sismoh_estado_fecha_hora_id", columnList = "estado, fechaHora, id"),
+    @Index(name = "idx_sismoh_fecha_utc", columnList = "fechaUtc"),
+    @Index(name = "uk_sismosh_clave_natural", columnList = "fechaHora, latitud, longitud, magnitud", unique = true)
 })
 @Data
 @NoArgsConstructor
@@ -53,6 +56,11 @@ public class SismoH {
     @Column(nullable = false, length = 50)
     private String estatus;
 
+    // Estado obtenido de referenciaLocalizacion al importar; null si no termina en un estado conocido
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private EstadoMexicano estado;
+
     @Column(nullable = false)
     private OffsetDateTime fechaHora;
 
@@ -0,0 +1,14 @@
+package ipn.mx.isc.sismosapp.backend.model.enums;
+
+/**
+ * Estado de una importación del catálogo histórico
+ */
+public enum EstadoImportacion {
+    // Recibiendo fragmentos del archivo
+    RECIBIENDO,
+    PENDIENTE,
+    PROCESANDO,
+    COMPLETADA,
+    // Se puede reintentar desde el último avance guardado
+    FALLIDA
+}
@@ -70,6 +70,22 @@ public enum EstadoMexicano {
             .findFirst();
     }
 
+    /**
+     * Obtiene el estado de un lugar del SSN, que termina con la abreviatura
+     * después de la última coma (ej: "12 km al SUR de CRUCECITA, OAX")
+     */
+    public static Optional<EstadoMexicano> fromLugar(String lugar) {
+        if (lugar == null) {
+            return Optional.empty();
+        }
+
+        int ultimaComa = lugar.lastIndexOf(',');
+        if (ultimaComa == -1) {
+            return Optional.empty();
+        }
+        return fromAbreviatura(lugar.substring(ultimaComa + 1));
+    }
+
     /**
      * Busca un estado por su abreviatura (case-insensitive)
      */
@@ -0,0 +1,12 @@
+package ipn.mx.isc.sismosapp.backend.model.enums;
+
+/**
+ * Estado de un envío en push_outbox
+ */
+public enum EstadoPush {
+    PENDIENTE,
+    PROCESANDO,
+    ENVIADO,
+    // Agotó los reintentos
+    FALLIDO
+}
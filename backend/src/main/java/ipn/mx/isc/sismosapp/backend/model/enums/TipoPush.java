@@ -0,0 +1,11 @@
+package ipn.mx.isc.sismosapp.backend.model.enums;
+
+/**
+ * Tipo de envío pendiente en push_outbox
+ */
+public enum TipoPush {
+    // Mensaje data con los sismos nuevos para todos los dispositivos
+    DATOS,
+    // Notificación visible de un sismo que superó el umbral
+    ALERTA
+}
@@ -2,6 +2,7 @@ package ipn.mx.isc.sismosapp.backend.model.mapper;
 
 import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
 import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
 
 import org.springframework.stereotype.Component;
 
@@ -60,6 +61,7 @@ public class SismoMapper {
         sismo.setMagnitud(dto.getMagnitud());
         sismo.setProfundidadKm(dto.getProfundidadKm());
         sismo.setLugar(dto.getLugar());
+        sismo.setEstado(EstadoMexicano.fromLugar(dto.getLugar()).orElse(null));
         sismo.setFuente(dto.getFuente());
         
         return sismo;
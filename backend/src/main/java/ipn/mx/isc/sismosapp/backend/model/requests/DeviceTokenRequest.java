@@ -3,6 +3,9 @@ package ipn.mx.isc.sismosapp.backend.model.requests;
 public class DeviceTokenRequest {
     private String token;
     private String platform;
+    // Preferencias opcionales de alertas: abreviatura del estado y magnitud mínima (4 a 7)
+    private String estado;
+    private Integer magnitudMinima;
 
     public String getToken() {
         return token;
@@ -19,4 +22,20 @@ public class DeviceTokenRequest {
     public void setPlatform(String platform) {
         this.platform = platform;
     }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public Integer getMagnitudMinima() {
+        return magnitudMinima;
+    }
+
+    public void setMagnitudMinima(Integer magnitudMinima) {
+        this.magnitudMinima = magnitudMinima;
+    }
 }
@@ -0,0 +1,9 @@
+package ipn.mx.isc.sismosapp.backend.model.responses;
+
+/**
+ * Cuerpo HTTP ya serializado (JSON y gzip) con su ETag fuerte
+ *
+ * @param cursorSiguiente Cursor de la página siguiente; null si la lista no llenó la página
+ */
+public record RespuestaPrecalculada(byte[] json, byte[] gzip, String etag, String cursorSiguiente) {
+}
@@ -0,0 +1,24 @@
+package ipn.mx.isc.sismosapp.backend.model.responses;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+
+import java.util.List;
+
+/**
+ * Cambios de sismos desde un cursor de sincronización
+ */
+@Schema(description = "Altas y bajas de sismos posteriores al cursor del cliente")
+public record SincronizacionSismos(
+    @Schema(description = "Sismos nuevos, en orden de ingesta")
+    List<SismoDTO> sismos,
+    @Schema(description = "Ids de sismos eliminados que el cliente debe quitar")
+    List<String> eliminados,
+    @Schema(description = "Cursor para la siguiente petición", example = "1532")
+    long cursor,
+    @Schema(description = "Hay más cambios; pedir de nuevo con el cursor devuelto")
+    boolean hayMas,
+    @Schema(description = "El cursor no es válido en este servidor; la lista trae los sismos recientes y reemplaza la del cliente")
+    boolean reiniciar
+) {
+}
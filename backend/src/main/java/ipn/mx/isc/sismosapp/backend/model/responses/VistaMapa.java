@@ -0,0 +1,21 @@
+package ipn.mx.isc.sismosapp.backend.model.responses;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ipn.mx.isc.sismosapp.backend.model.dto.GrupoSismos;
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+
+import java.util.List;
+
+/**
+ * Contenido de una ventana del mapa: sismos individuales o, si son demasiados, grupos por celda
+ */
+@Schema(description = "Sismos dentro de la ventana visible del mapa")
+public record VistaMapa(
+    @Schema(description = "true si la respuesta trae grupos en lugar de sismos individuales")
+    boolean agrupado,
+    @Schema(description = "Sismos individuales (vacío si agrupado)")
+    List<SismoDTO> sismos,
+    @Schema(description = "Grupos por celda (vacío si no agrupado)")
+    List<GrupoSismos> grupos
+) {
+}
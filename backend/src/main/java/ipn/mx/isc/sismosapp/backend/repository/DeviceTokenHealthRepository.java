@@ -0,0 +1,71 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.DeviceTokenHealth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface DeviceTokenHealthRepository extends JpaRepository<DeviceTokenHealth, String> {
+
+    /**
+     * Suma un fallo consecutivo a cada token (los crea si no existen) en una sola sentencia;
+     * el primer fallo de una racha marca su inicio
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO device_token_health (token, fallos_consecutivos, ultimo_fallo, primer_fallo)
+        SELECT t, 1, now(), now() FROM unnest(CAST(:tokens AS text[])) AS t
+        ON CONFLICT (token) DO UPDATE
+        SET fallos_consecutivos = device_token_health.fallos_consecutivos + 1, ultimo_fallo = now(),
+            primer_fallo = CASE WHEN device_token_health.fallos_consecutivos = 0 THEN now()
+                                ELSE COALESCE(device_token_health.primer_fallo, now()) END
+        """, nativeQuery = true)
+    int registrarFallos(@Param("tokens") String[] tokens);
+
+    /**
+     * Reinicia el contador de los tokens que habían fallado y ahora recibieron un mensaje.
+     * Los tokens sin registro no se tocan, así un envío normal no escribe una fila por dispositivo.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE device_token_health SET fallos_consecutivos = 0, primer_fallo = NULL, ultimo_exito = now()
+        WHERE token = ANY(CAST(:tokens AS text[])) AND fallos_consecutivos > 0
+        """, nativeQuery = true)
+    int registrarExitos(@Param("tokens") String[] tokens);
+
+    /**
+     * Elimina de device_tokens, en una sola sentencia, los tokens con demasiados fallos seguidos
+     * en una racha que empezó antes de la fecha límite (sin ninguna entrega exitosa desde entonces).
+     * Como un éxito reinicia la racha, no basta con que falte ultimo_exito: los tokens sanos no tienen registro.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        DELETE FROM device_tokens d
+        USING device_token_health h
+        WHERE h.token = d.token
+          AND h.fallos_consecutivos >= :fallos
+          AND h.primer_fallo < :limite
+        """, nativeQuery = true)
+    int eliminarTokensMuertos(@Param("fallos") int fallos, @Param("limite") OffsetDateTime limite);
+
+    /**
+     * Quita registros de tokens ya eliminados o recuperados
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        DELETE FROM device_token_health h
+        WHERE h.fallos_consecutivos = 0
+           OR NOT EXISTS (SELECT 1 FROM device_tokens d WHERE d.token = h.token)
+        """, nativeQuery = true)
+    int limpiarRegistros();
+}
@@ -1,11 +1,58 @@
 package ipn.mx.isc.sismosapp.backend.repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ipn.mx.isc.sismosapp.backend.model.dto.TokenDispositivo;
 import ipn.mx.isc.sismosapp.backend.model.entities.DeviceToken;
 
 @Repository
 public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long> {
     Optional<DeviceToken> findByToken(String token);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeviceToken d WHERE d.token IN :tokens")
+    int eliminarPorTokens(@Param("tokens") Collection<String> tokens);
+
+    // Página de tokens para el envío masivo, con cursor por id; omite los que fallaron seguido desde inicioOmision
+    @Query("""
+        SELECT d.id AS id, d.token AS token FROM DeviceToken d
+        WHERE d.id > :id AND NOT EXISTS (
+            SELECT 1 FROM DeviceTokenHealth h
+            WHERE h.token = d.token AND h.fallosConsecutivos >= :fallos AND h.ultimoFallo > :inicioOmision
+        )
+        ORDER BY d.id ASC
+        """)
+    List<TokenDispositivo> findEntregables(@Param("id") Long id, @Param("fallos") int fallos,
+                                           @Param("inicioOmision") OffsetDateTime inicioOmision, Limit limit);
+
+    List<DeviceToken> findTop1000ByTopicosSincronizadosFalseAndIdGreaterThanOrderByIdAsc(Long id);
+
+    // Tópicos confirmados por FCM; si las preferencias cambiaron desde que se leyeron, no actualiza nada
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE DeviceToken d SET d.topicosSuscritos = :suscritos, d.topicosSincronizados = :sincronizados
+        WHERE d.id = :id
+          AND (d.estado = :estado OR (d.estado IS NULL AND :estado IS NULL))
+          AND (d.magnitudMinima = :nivel OR (d.magnitudMinima IS NULL AND :nivel IS NULL))
+        """)
+    int registrarTopicos(@Param("id") Long id, @Param("suscritos") String suscritos,
+                         @Param("sincronizados") boolean sincronizados,
+                         @Param("estado") String estado, @Param("nivel") Integer nivel);
+
+    // Solo los tópicos confirmados, para un token cuyas preferencias cambiaron durante la sincronización
+    @Modifying
+    @Transactional
+    @Query("UPDATE DeviceToken d SET d.topicosSuscritos = :suscritos WHERE d.id = :id")
+    int registrarTopicosSuscritos(@Param("id") Long id, @Param("suscritos") String suscritos);
 }
@@ -0,0 +1,150 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.ImportacionCsv;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImportacionCsvRepository extends JpaRepository<ImportacionCsv, String> {
+
+    // Serializa los cambios de estado de una misma importación
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM ImportacionCsv i WHERE i.id = :id")
+    Optional<ImportacionCsv> bloquear(@Param("id") String id);
+
+    // Pendientes y en proceso con lease vencido (la instancia que las importaba se cayó)
+    @Query("SELECT i.id FROM ImportacionCsv i " +
+           "WHERE i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.PENDIENTE " +
+           "OR (i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.PROCESANDO " +
+           "AND i.bloqueadoHasta < :ahora)")
+    List<String> findReanudables(@Param("ahora") OffsetDateTime ahora);
+
+    /**
+     * Reserva la recepción de un fragmento en {@code offset}: la importación debe seguir recibiendo,
+     * haber recibido exactamente offset bytes y no tener otro fragmento en curso (o que su reserva haya vencido)
+     *
+     * @return 1 si se reservó
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportacionCsv i SET i.reclamo = :reclamo, i.bloqueadoHasta = :hasta " +
+           "WHERE i.id = :id AND i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.RECIBIENDO " +
+           "AND i.bytesRecibidos = :offset AND (i.bloqueadoHasta IS NULL OR i.bloqueadoHasta < :ahora)")
+    int reservarFragmento(@Param("id") String id,
+                          @Param("reclamo") String reclamo,
+                          @Param("offset") long offset,
+                          @Param("ahora") OffsetDateTime ahora,
+                          @Param("hasta") OffsetDateTime hasta);
+
+    // Confirma un fragmento escrito; no aplica si la reserva la tomó otro o los bytes recibidos cambiaron.
+    // Limpia el contexto de persistencia para que la lectura siguiente vea los bytes confirmados
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE ImportacionCsv i SET i.bytesRecibidos = :recibidos, i.reclamo = null, i.bloqueadoHasta = null, " +
+           "i.actualizadaEn = :ahora " +
+           "WHERE i.id = :id AND i.reclamo = :reclamo AND i.bytesRecibidos = :offset " +
+           "AND i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.RECIBIENDO")
+    int confirmarFragmento(@Param("id") String id,
+                           @Param("reclamo") String reclamo,
+                           @Param("offset") long offset,
+                           @Param("recibidos") long recibidos,
+                           @Param("ahora") OffsetDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportacionCsv i SET i.reclamo = null, i.bloqueadoHasta = null " +
+           "WHERE i.id = :id AND i.reclamo = :reclamo " +
+           "AND i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.RECIBIENDO")
+    int liberarFragmento(@Param("id") String id, @Param("reclamo") String reclamo);
+
+    /**
+     * Toma la importación si está pendiente o si su lease venció; el reclamo identifica a este proceso
+     * en las actualizaciones siguientes
+     *
+     * @return 1 si se tomó
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportacionCsv i SET i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.PROCESANDO, " +
+           "i.reclamo = :reclamo, i.bloqueadoHasta = :hasta " +
+           "WHERE i.id = :id AND (i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.PENDIENTE " +
+           "OR (i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.PROCESANDO AND i.bloqueadoHasta < :ahora))")
+    int reclamar(@Param("id") String id,
+                 @Param("reclamo") String reclamo,
+                 @Param("ahora") OffsetDateTime ahora,
+                 @Param("hasta") OffsetDateTime hasta);
+
+    // Guarda el avance de un tramo importado y renueva el lease, solo si este proceso sigue siendo el dueño
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportacionCsv i SET i.bytesProcesados = :bytes, i.lineasProcesadas = :lineas, " +
+           "i.filasLeidas = i.filasLeidas + :leidas, i.filasInsertadas = i.filasInsertadas + :insertadas, " +
+           "i.filasOmitidas = i.filasOmitidas + :omitidas, i.bloqueadoHasta = :hasta " +
+           "WHERE i.id = :id AND i.reclamo = :reclamo " +
+           "AND i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.PROCESANDO")
+    int registrarAvance(@Param("id") String id,
+                        @Param("reclamo") String reclamo,
+                        @Param("bytes") long bytes,
+                        @Param("lineas") long lineas,
+                        @Param("leidas") long leidas,
+                        @Param("insertadas") long insertadas,
+                        @Param("omitidas") long omitidas,
+                        @Param("hasta") OffsetDateTime hasta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportacionCsv i SET i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.COMPLETADA, " +
+           "i.reclamo = null, i.bloqueadoHasta = null, i.mensaje = :mensaje, i.terminadaEn = :ahora " +
+           "WHERE i.id = :id AND i.reclamo = :reclamo " +
+           "AND i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.PROCESANDO")
+    int marcarCompletada(@Param("id") String id,
+                         @Param("reclamo") String reclamo,
+                         @Param("mensaje") String mensaje,
+                         @Param("ahora") OffsetDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportacionCsv i SET i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.FALLIDA, " +
+           "i.reclamo = null, i.bloqueadoHasta = null, i.mensaje = :error, i.terminadaEn = :ahora " +
+           "WHERE i.id = :id AND i.reclamo = :reclamo " +
+           "AND i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.PROCESANDO")
+    int marcarFallida(@Param("id") String id,
+                      @Param("reclamo") String reclamo,
+                      @Param("error") String error,
+                      @Param("ahora") OffsetDateTime ahora);
+
+    // Recepciones sin fragmentos desde el límite y sin uno en curso
+    @Query("SELECT i.id FROM ImportacionCsv i " +
+           "WHERE i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.RECIBIENDO " +
+           "AND COALESCE(i.actualizadaEn, i.createdAt) < :limite " +
+           "AND (i.bloqueadoHasta IS NULL OR i.bloqueadoHasta < :ahora)")
+    List<String> findRecepcionesAbandonadas(@Param("limite") OffsetDateTime limite, @Param("ahora") OffsetDateTime ahora);
+
+    // Repite las condiciones de findRecepcionesAbandonadas: no aplica si entró un fragmento mientras tanto
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportacionCsv i SET i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.FALLIDA, " +
+           "i.reclamo = null, i.bloqueadoHasta = null, i.mensaje = :mensaje, i.terminadaEn = :ahora " +
+           "WHERE i.id = :id AND i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.RECIBIENDO " +
+           "AND COALESCE(i.actualizadaEn, i.createdAt) < :limite " +
+           "AND (i.bloqueadoHasta IS NULL OR i.bloqueadoHasta < :ahora)")
+    int marcarAbandonada(@Param("id") String id,
+                         @Param("mensaje") String mensaje,
+                         @Param("limite") OffsetDateTime limite,
+                         @Param("ahora") OffsetDateTime ahora);
+
+    @Query("SELECT i.id FROM ImportacionCsv i " +
+           "WHERE i.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion.FALLIDA " +
+           "AND i.terminadaEn < :limite")
+    List<String> findFallidasAntesDe(@Param("limite") OffsetDateTime limite);
+}
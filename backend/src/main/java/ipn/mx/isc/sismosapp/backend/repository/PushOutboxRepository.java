@@ -0,0 +1,54 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.PushOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface PushOutboxRepository extends JpaRepository<PushOutbox, Long>, PushOutboxRepositoryCustom {
+
+    // Las actualizaciones del worker solo aplican mientras su reclamo siga vigente;
+    // devuelven 0 si otro worker retomó el envío tras vencer el lease
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PushOutbox p SET p.bloqueadoHasta = :hasta WHERE p.id = :id AND p.reclamo = :reclamo " +
+           "AND p.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush.PROCESANDO")
+    int renovarLease(@Param("id") Long id, @Param("reclamo") String reclamo, @Param("hasta") OffsetDateTime hasta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PushOutbox p SET p.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush.ENVIADO, " +
+           "p.bloqueadoHasta = null, p.ultimoError = null, p.enviadoEn = :ahora WHERE p.id = :id " +
+           "AND p.reclamo = :reclamo AND p.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush.PROCESANDO")
+    int marcarEnviado(@Param("id") Long id, @Param("reclamo") String reclamo, @Param("ahora") OffsetDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PushOutbox p SET p.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush.PENDIENTE, " +
+           "p.bloqueadoHasta = null, p.siguienteIntento = :siguienteIntento, p.ultimoError = :error WHERE p.id = :id " +
+           "AND p.reclamo = :reclamo AND p.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush.PROCESANDO")
+    int reprogramar(@Param("id") Long id,
+                    @Param("reclamo") String reclamo,
+                    @Param("siguienteIntento") OffsetDateTime siguienteIntento,
+                    @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PushOutbox p SET p.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush.FALLIDO, " +
+           "p.bloqueadoHasta = null, p.ultimoError = :error WHERE p.id = :id " +
+           "AND p.reclamo = :reclamo AND p.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush.PROCESANDO")
+    int marcarFallido(@Param("id") Long id, @Param("reclamo") String reclamo, @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PushOutbox p WHERE p.estado = ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush.ENVIADO " +
+           "AND p.enviadoEn < :limite")
+    int eliminarEnviadosAntesDe(@Param("limite") OffsetDateTime limite);
+}
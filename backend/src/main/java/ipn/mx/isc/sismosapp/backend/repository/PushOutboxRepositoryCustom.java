@@ -0,0 +1,20 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.PushOutbox;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Operaciones de push_outbox que requieren SQL nativo
+ */
+public interface PushOutboxRepositoryCustom {
+
+    /**
+     * Reclama envíos listos (pendientes cuyo reintento ya venció, o en proceso con lease vencido)
+     * con FOR UPDATE SKIP LOCKED, para que varias instancias no tomen el mismo registro.
+     * Los registros quedan en PROCESANDO con el lease indicado, un intento más y un token de reclamo
+     * nuevo; un reclamo posterior del mismo registro invalida las actualizaciones del anterior.
+     */
+    List<PushOutbox> reclamarPendientes(int limite, Duration lease);
+}
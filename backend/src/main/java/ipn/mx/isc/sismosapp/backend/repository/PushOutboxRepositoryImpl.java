@@ -0,0 +1,59 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.PushOutbox;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush;
+import ipn.mx.isc.sismosapp.backend.model.enums.TipoPush;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementación JDBC del reclamo de envíos de PushOutboxRepository
+ */
+public class PushOutboxRepositoryImpl implements PushOutboxRepositoryCustom {
+
+    private static final String RECLAMAR = """
+        UPDATE push_outbox
+        SET estado = 'PROCESANDO', bloqueado_hasta = now() + (? * interval '1 second'), intentos = intentos + 1,
+            reclamo = ?
+        WHERE id IN (
+            SELECT id FROM push_outbox
+            WHERE (estado = 'PENDIENTE' AND siguiente_intento <= now())
+               OR (estado = 'PROCESANDO' AND bloqueado_hasta < now())
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING id, tipo, payload, umbral, estado, intentos, siguiente_intento, bloqueado_hasta, reclamo, created_at
+        """;
+
+    private static final RowMapper<PushOutbox> PUSH_ROW_MAPPER = (rs, rowNum) -> {
+        PushOutbox push = new PushOutbox();
+        push.setId(rs.getLong("id"));
+        push.setTipo(TipoPush.valueOf(rs.getString("tipo")));
+        push.setPayload(rs.getString("payload"));
+        push.setUmbral(rs.getObject("umbral", Double.class));
+        push.setEstado(EstadoPush.valueOf(rs.getString("estado")));
+        push.setIntentos(rs.getInt("intentos"));
+        push.setSiguienteIntento(rs.getObject("siguiente_intento", OffsetDateTime.class));
+        push.setBloqueadoHasta(rs.getObject("bloqueado_hasta", OffsetDateTime.class));
+        push.setReclamo(rs.getString("reclamo"));
+        push.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class));
+        return push;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PushOutboxRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<PushOutbox> reclamarPendientes(int limite, Duration lease) {
+        return jdbcTemplate.query(RECLAMAR, PUSH_ROW_MAPPER, lease.toSeconds(), UUID.randomUUID().toString(), limite);
+    }
+}
@@ -0,0 +1,15 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.SismoEliminado;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SismoEliminadoRepository extends JpaRepository<SismoEliminado, String> {
+
+    // Bajas posteriores a un cursor de sincronización, en orden de ingesta
+    List<SismoEliminado> findBySecuenciaGreaterThanOrderBySecuenciaAsc(Long secuencia, Limit limit);
+}
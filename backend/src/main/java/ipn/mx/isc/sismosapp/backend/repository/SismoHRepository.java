@@ -1,15 +1,21 @@
 package ipn.mx.isc.sismosapp.backend.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ipn.mx.isc.sismosapp.backend.model.entities.SismoH;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SismoHRepository extends JpaRepository<SismoH, String> {
+public interface SismoHRepository extends JpaRepository<SismoH, String>, JpaSpecificationExecutor<SismoH>, SismoHRepositoryCustom {
 
     Optional<SismoH> findByFechaHoraAndLatitudAndLongitudAndMagnitud(
         OffsetDateTime fechaHora,
@@ -17,4 +23,21 @@ public interface SismoHRepository extends JpaRepository<SismoH, String> {
         Double longitud,
         Double magnitud
     );
+
+    Optional<SismoH> findFirstByOrderByFechaHoraDesc();
+
+    Optional<SismoH> findFirstByOrderByFechaHoraAsc();
+
+    // Página sin count(*)
+    Slice<SismoH> findAllBy(Pageable pageable);
+
+    List<SismoH> findByFechaHoraBetween(OffsetDateTime inicio, OffsetDateTime fin);
+
+    // Conteo por estado del periodo, agregado en BD: [EstadoMexicano (o null), Long]
+    @Query("""
+        SELECT h.estado, count(h) FROM SismoH h
+        WHERE h.fechaHora BETWEEN :inicio AND :fin
+        GROUP BY h.estado
+        """)
+    List<Object[]> contarPorEstado(@Param("inicio") OffsetDateTime inicio, @Param("fin") OffsetDateTime fin);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.SismoH;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Operaciones masivas de sismosh que requieren SQL nativo
+ */
+public interface SismoHRepositoryCustom {
+
+    /**
+     * Resultado de una carga: filas leídas de la entrada y filas que entraron a sismosh
+     */
+    record ResultadoCarga(long leidas, long insertadas) {
+    }
+
+    /**
+     * Envía los sismos con COPY FROM STDIN a una tabla temporal y de ahí los agrega a sismosh
+     * omitiendo los que ya existen por clave natural (fechaHora, latitud, longitud, magnitud)
+     * y los repetidos dentro de la misma carga. El iterador se recorre una sola vez, sin acumular filas.
+     */
+    ResultadoCarga cargarConCopy(Iterator<SismoH> sismos);
+
+    /**
+     * Inserta el lote con INSERT ... ON CONFLICT DO NOTHING sobre la clave natural
+     *
+     * @return Cuántos se insertaron; el resto ya existía
+     */
+    int insertarIgnorandoDuplicados(List<SismoH> sismos);
+}
@@ -0,0 +1,173 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.SismoH;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementación JDBC de las operaciones masivas de SismoHRepository
+ */
+public class SismoHRepositoryImpl implements SismoHRepositoryCustom {
+
+    private static final int TAMANO_BUFFER_COPY = 64 * 1024;
+
+    private static final String COLUMNAS = """
+        id, fecha, hora, magnitud, latitud, longitud, profundidad, referencia_localizacion, \
+        fecha_utc, hora_utc, estatus, estado, fecha_hora, created_at""";
+
+    // Sin índices ni restricciones: COPY solo escribe las filas
+    private static final String CREAR_TABLA_CARGA = "CREATE TEMP TABLE sismosh_carga (LIKE sismosh)";
+
+    private static final String ELIMINAR_TABLA_CARGA = "DROP TABLE IF EXISTS sismosh_carga";
+
+    private static final String COPY = "COPY sismosh_carga (" + COLUMNAS + ") FROM STDIN WITH (FORMAT csv)";
+
+    // Índice único uk_sismosh_clave_natural (migración V6); también omite los repetidos dentro de la carga
+    private static final String COMBINAR = """
+        INSERT INTO sismosh (%1$s)
+        SELECT %1$s FROM sismosh_carga
+        ON CONFLICT (fecha_hora, latitud, longitud, magnitud) DO NOTHING
+        """.formatted(COLUMNAS);
+
+    // Máximo de filas por sentencia (PostgreSQL admite hasta 65535 parámetros)
+    private static final int FILAS_POR_SENTENCIA = 1000;
+
+    private static final String INSERT = """
+        INSERT INTO sismosh (%s)
+        VALUES %%s
+        ON CONFLICT (fecha_hora, latitud, longitud, magnitud) DO NOTHING
+        """.formatted(COLUMNAS);
+
+    private static final String VALORES_FILA = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SismoHRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public ResultadoCarga cargarConCopy(Iterator<SismoH> sismos) {
+        // La tabla temporal es de la sesión: todo debe correr en la misma conexión.
+        // Si la lectura falla, cerrar el writer termina el COPY y la tabla se elimina sin combinar.
+        return jdbcTemplate.execute((ConnectionCallback<ResultadoCarga>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(ELIMINAR_TABLA_CARGA);
+                statement.execute(CREAR_TABLA_CARGA);
+                try {
+                    long leidas = copiar(connection, sismos);
+                    long insertadas = statement.executeUpdate(COMBINAR);
+                    return new ResultadoCarga(leidas, insertadas);
+                } finally {
+                    statement.execute(ELIMINAR_TABLA_CARGA);
+                }
+            }
+        });
+    }
+
+    @Override
+    public int insertarIgnorandoDuplicados(List<SismoH> sismos) {
+        int insertados = 0;
+        for (int inicio = 0; inicio < sismos.size(); inicio += FILAS_POR_SENTENCIA) {
+            List<SismoH> lote = sismos.subList(inicio, Math.min(inicio + FILAS_POR_SENTENCIA, sismos.size()));
+            insertados += insertarLote(lote);
+        }
+        return insertados;
+    }
+
+    private int insertarLote(List<SismoH> lote) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<String> filas = new ArrayList<>(lote.size());
+        List<Object> parametros = new ArrayList<>(lote.size() * 14);
+
+        for (SismoH sismo : lote) {
+            filas.add(VALORES_FILA);
+            parametros.add(sismo.getId() != null ? sismo.getId() : UUID.randomUUID().toString());
+            parametros.add(sismo.getFecha());
+            parametros.add(sismo.getHora());
+            parametros.add(sismo.getMagnitud());
+            parametros.add(sismo.getLatitud());
+            parametros.add(sismo.getLongitud());
+            parametros.add(sismo.getProfundidad());
+            parametros.add(sismo.getReferenciaLocalizacion());
+            parametros.add(sismo.getFechaUtc());
+            parametros.add(sismo.getHoraUtc());
+            parametros.add(sismo.getEstatus());
+            parametros.add(sismo.getEstado() != null ? sismo.getEstado().name() : null);
+            parametros.add(sismo.getFechaHora());
+            parametros.add(ahora);
+        }
+
+        return jdbcTemplate.update(INSERT.formatted(String.join(", ", filas)), parametros.toArray());
+    }
+
+    private long copiar(Connection connection, Iterator<SismoH> sismos) throws SQLException {
+        PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY, TAMANO_BUFFER_COPY);
+        LocalDateTime ahora = LocalDateTime.now();
+        StringBuilder fila = new StringBuilder(256);
+        long copiadas = 0;
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), TAMANO_BUFFER_COPY)) {
+            while (sismos.hasNext()) {
+                escribirFila(fila, sismos.next(), ahora);
+                writer.append(fila);
+                copiadas++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error enviando filas con COPY", e);
+        }
+        return copiadas;
+    }
+
+    private static void escribirFila(StringBuilder fila, SismoH sismo, LocalDateTime ahora) {
+        fila.setLength(0);
+        fila.append(sismo.getId() != null ? sismo.getId() : UUID.randomUUID().toString()).append(',');
+        texto(fila, sismo.getFecha()).append(',');
+        texto(fila, sismo.getHora()).append(',');
+        fila.append(sismo.getMagnitud()).append(',');
+        fila.append(sismo.getLatitud()).append(',');
+        fila.append(sismo.getLongitud()).append(',');
+        fila.append(sismo.getProfundidad()).append(',');
+        texto(fila, sismo.getReferenciaLocalizacion()).append(',');
+        texto(fila, sismo.getFechaUtc()).append(',');
+        texto(fila, sismo.getHoraUtc()).append(',');
+        texto(fila, sismo.getEstatus()).append(',');
+        // Campo vacío sin comillas = NULL en formato csv
+        if (sismo.getEstado() != null) {
+            fila.append(sismo.getEstado().name());
+        }
+        fila.append(',');
+        fila.append(sismo.getFechaHora()).append(',');
+        fila.append(ahora).append('\n');
+    }
+
+    // Texto siempre entre comillas para que comas, comillas y saltos de línea lleguen tal cual
+    private static StringBuilder texto(StringBuilder fila, String valor) {
+        fila.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                fila.append('"');
+            }
+            fila.append(c);
+        }
+        return fila.append('"');
+    }
+}
@@ -1,16 +1,21 @@
 package ipn.mx.isc.sismosapp.backend.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SismoRepository extends JpaRepository<Sismo, String>, JpaSpecificationExecutor<Sismo> {
+public interface SismoRepository extends JpaRepository<Sismo, String>, JpaSpecificationExecutor<Sismo>, SismoRepositoryCustom {
 
     Optional<Sismo> findByFechaHoraAndLatitudAndLongitudAndMagnitud(
         OffsetDateTime fechaHora,
@@ -18,4 +23,21 @@ public interface SismoRepository extends JpaRepository<Sismo, String>, JpaSpecif
         Double longitud,
         Double magnitud
     );
+
+    Optional<Sismo> findFirstByFechaHoraLessThanOrderByFechaHoraDesc(OffsetDateTime fechaHora);
+
+    // Página sin count(*)
+    Slice<Sismo> findAllBy(Pageable pageable);
+
+    // Altas posteriores a un cursor de sincronización, en orden de ingesta
+    List<Sismo> findBySecuenciaGreaterThanOrderBySecuenciaAsc(Long secuencia, Limit limit);
+
+    // Última secuencia ya confirmada (altas o bajas); 0 si no hay registros
+    @Query(value = """
+        SELECT GREATEST(
+            COALESCE((SELECT max(secuencia) FROM sismos), 0),
+            COALESCE((SELECT max(secuencia) FROM sismos_eliminados), 0)
+        )
+        """, nativeQuery = true)
+    long obtenerUltimaSecuencia();
 }
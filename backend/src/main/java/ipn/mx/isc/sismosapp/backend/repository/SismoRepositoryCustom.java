@@ -0,0 +1,42 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.dto.GrupoSismos;
+import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
+
+import java.util.List;
+
+public interface SismoRepositoryCustom {
+
+    /**
+     * Inserta el lote en una sola sentencia omitiendo los que ya existen por clave natural
+     * (fechaHora, latitud, longitud, magnitud).
+     *
+     * @return Solo los sismos que se insertaron
+     */
+    List<Sismo> insertarIgnorandoDuplicados(List<Sismo> sismos);
+
+    /**
+     * Elimina el sismo y registra la baja en sismos_eliminados con la siguiente secuencia de ingesta.
+     * Debe ejecutarse dentro de una transacción.
+     *
+     * @return true si el sismo existía
+     */
+    boolean eliminarConRegistro(String id);
+
+    /**
+     * Agrupa los sismos del rectángulo en celdas cuadradas de {@code tamanoCelda} grados,
+     * usando el índice GiST de ubicación
+     *
+     * @param magnitudMin Opcional
+     */
+    List<GrupoSismos> agruparEnCeldas(double latitudMin, double latitudMax, double longitudMin, double longitudMax,
+                                      Double magnitudMin, double tamanoCelda);
+
+    /**
+     * Sismos del rectángulo, los más recientes primero
+     *
+     * @param magnitudMin Opcional
+     */
+    List<Sismo> buscarEnRectangulo(double latitudMin, double latitudMax, double longitudMin, double longitudMax,
+                                   Double magnitudMin, int limite);
+}
@@ -0,0 +1,176 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.dto.GrupoSismos;
+import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementación JDBC de las operaciones masivas de SismoRepository
+ */
+public class SismoRepositoryImpl implements SismoRepositoryCustom {
+
+    // Máximo de filas por sentencia (PostgreSQL admite hasta 65535 parámetros)
+    private static final int FILAS_POR_SENTENCIA = 1000;
+
+    // Serializa las escrituras de sismos para que la secuencia de ingesta siga el orden de commit
+    private static final long LOCK_ESCRITURA = 7_305_002L;
+
+    private static final String INSERT = """
+        INSERT INTO sismos (id, fecha_hora, latitud, longitud, magnitud, profundidad_km, lugar, fuente, estado, created_at)
+        VALUES %s
+        ON CONFLICT (fecha_hora, latitud, longitud, magnitud) DO NOTHING
+        RETURNING id, fecha_hora, latitud, longitud, magnitud, profundidad_km, lugar, fuente, estado, created_at, secuencia
+        """;
+
+    private static final String REGISTRAR_ELIMINADO = """
+        INSERT INTO sismos_eliminados (id, eliminado_en) VALUES (?, now())
+        ON CONFLICT (id) DO UPDATE
+        SET secuencia = nextval('sismos_secuencia_seq'), eliminado_en = excluded.eliminado_en
+        """;
+
+    // Rectángulo sobre el índice GiST de point(longitud, latitud) (migración V5)
+    private static final String EN_RECTANGULO = "point(longitud, latitud) <@ box(point(?, ?), point(?, ?))";
+
+    private static final String AGRUPAR_CELDAS = """
+        SELECT avg(latitud) AS latitud, avg(longitud) AS longitud, count(*) AS total, max(magnitud) AS magnitud_maxima
+        FROM sismos
+        WHERE %s
+        GROUP BY floor(longitud / ?), floor(latitud / ?)
+        """;
+
+    private static final String BUSCAR_RECTANGULO = """
+        SELECT id, fecha_hora, latitud, longitud, magnitud, profundidad_km, lugar, fuente, estado, created_at, secuencia
+        FROM sismos
+        WHERE %s
+        ORDER BY fecha_hora DESC, id DESC
+        LIMIT ?
+        """;
+
+    private static final RowMapper<GrupoSismos> GRUPO_ROW_MAPPER = (rs, rowNum) -> new GrupoSismos(
+        rs.getDouble("latitud"),
+        rs.getDouble("longitud"),
+        rs.getLong("total"),
+        rs.getDouble("magnitud_maxima")
+    );
+
+    private static final String VALORES_FILA = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final RowMapper<Sismo> SISMO_ROW_MAPPER = (rs, rowNum) -> {
+        Sismo sismo = new Sismo();
+        sismo.setId(rs.getString("id"));
+        sismo.setFechaHora(rs.getObject("fecha_hora", OffsetDateTime.class));
+        sismo.setLatitud(rs.getDouble("latitud"));
+        sismo.setLongitud(rs.getDouble("longitud"));
+        sismo.setMagnitud(rs.getDouble("magnitud"));
+        sismo.setProfundidadKm(rs.getDouble("profundidad_km"));
+        sismo.setLugar(rs.getString("lugar"));
+        sismo.setFuente(rs.getString("fuente"));
+        String estado = rs.getString("estado");
+        sismo.setEstado(estado != null ? EstadoMexicano.valueOf(estado) : null);
+        sismo.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        sismo.setSecuencia(rs.getLong("secuencia"));
+        return sismo;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SismoRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Sismo> insertarIgnorandoDuplicados(List<Sismo> sismos) {
+        List<Sismo> insertados = new ArrayList<>();
+        if (sismos == null || sismos.isEmpty()) {
+            return insertados;
+        }
+        bloquearEscritura();
+
+        for (int inicio = 0; inicio < sismos.size(); inicio += FILAS_POR_SENTENCIA) {
+            List<Sismo> lote = sismos.subList(inicio, Math.min(inicio + FILAS_POR_SENTENCIA, sismos.size()));
+            insertados.addAll(insertarLote(lote));
+        }
+        return insertados;
+    }
+
+    @Override
+    public boolean eliminarConRegistro(String id) {
+        bloquearEscritura();
+        if (jdbcTemplate.update("DELETE FROM sismos WHERE id = ?", id) == 0) {
+            return false;
+        }
+        jdbcTemplate.update(REGISTRAR_ELIMINADO, id);
+        return true;
+    }
+
+    @Override
+    public List<GrupoSismos> agruparEnCeldas(double latitudMin, double latitudMax, double longitudMin, double longitudMax,
+                                             Double magnitudMin, double tamanoCelda) {
+        List<Object> parametros = new ArrayList<>();
+        String condicion = condicionRectangulo(latitudMin, latitudMax, longitudMin, longitudMax, magnitudMin, parametros);
+        parametros.add(tamanoCelda);
+        parametros.add(tamanoCelda);
+        return jdbcTemplate.query(AGRUPAR_CELDAS.formatted(condicion), GRUPO_ROW_MAPPER, parametros.toArray());
+    }
+
+    @Override
+    public List<Sismo> buscarEnRectangulo(double latitudMin, double latitudMax, double longitudMin, double longitudMax,
+                                          Double magnitudMin, int limite) {
+        List<Object> parametros = new ArrayList<>();
+        String condicion = condicionRectangulo(latitudMin, latitudMax, longitudMin, longitudMax, magnitudMin, parametros);
+        parametros.add(limite);
+        return jdbcTemplate.query(BUSCAR_RECTANGULO.formatted(condicion), SISMO_ROW_MAPPER, parametros.toArray());
+    }
+
+    private String condicionRectangulo(double latitudMin, double latitudMax, double longitudMin, double longitudMax,
+                                       Double magnitudMin, List<Object> parametros) {
+        parametros.add(longitudMin);
+        parametros.add(latitudMin);
+        parametros.add(longitudMax);
+        parametros.add(latitudMax);
+        if (magnitudMin == null) {
+            return EN_RECTANGULO;
+        }
+        parametros.add(magnitudMin);
+        return EN_RECTANGULO + " AND magnitud >= ?";
+    }
+
+    /**
+     * Lock de transacción: un escritor que tomó un número menor de la secuencia siempre hace commit
+     * antes de que otro tome uno mayor, así un cursor nunca salta filas que aún no eran visibles.
+     */
+    private void bloquearEscritura() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_ESCRITURA);
+    }
+
+    private List<Sismo> insertarLote(List<Sismo> lote) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<String> filas = new ArrayList<>(lote.size());
+        List<Object> parametros = new ArrayList<>(lote.size() * 10);
+
+        for (Sismo sismo : lote) {
+            filas.add(VALORES_FILA);
+            parametros.add(sismo.getId() != null ? sismo.getId() : UUID.randomUUID().toString());
+            parametros.add(sismo.getFechaHora());
+            parametros.add(sismo.getLatitud());
+            parametros.add(sismo.getLongitud());
+            parametros.add(sismo.getMagnitud());
+            parametros.add(sismo.getProfundidadKm());
+            parametros.add(sismo.getLugar());
+            parametros.add(sismo.getFuente());
+            parametros.add(sismo.getEstado() != null ? sismo.getEstado().name() : null);
+            parametros.add(ahora);
+        }
+
+        String sql = INSERT.formatted(String.join(", ", filas));
+        return jdbcTemplate.query(sql, SISMO_ROW_MAPPER, parametros.toArray());
+    }
+}
@@ -0,0 +1,41 @@
+package ipn.mx.isc.sismosapp.backend.scheduler;
+
+import ipn.mx.isc.sismosapp.backend.service.ImportacionCsvService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retoma importaciones de CSV pendientes o de instancias caídas (también al arrancar)
+ * y limpia las recepciones abandonadas y los archivos de las fallidas
+ */
+@Component
+public class ImportacionCsvScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionCsvScheduler.class);
+
+    private final ImportacionCsvService importacionCsvService;
+
+    public ImportacionCsvScheduler(ImportacionCsvService importacionCsvService) {
+        this.importacionCsvService = importacionCsvService;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void reanudarImportaciones() {
+        try {
+            importacionCsvService.reanudarPendientes();
+        } catch (Exception e) {
+            logger.error("Error retomando importaciones de CSV: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "0 0 5 * * *")
+    public void limpiarImportaciones() {
+        try {
+            importacionCsvService.limpiarAbandonadas();
+        } catch (Exception e) {
+            logger.error("Error limpiando importaciones de CSV: {}", e.getMessage());
+        }
+    }
+}
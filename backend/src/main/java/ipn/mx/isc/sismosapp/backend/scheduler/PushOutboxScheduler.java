@@ -0,0 +1,82 @@
+package ipn.mx.isc.sismosapp.backend.scheduler;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.PushOutbox;
+import ipn.mx.isc.sismosapp.backend.repository.PushOutboxRepository;
+import ipn.mx.isc.sismosapp.backend.service.FcmSender;
+import ipn.mx.isc.sismosapp.backend.service.PushOutboxService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reclama envíos de push_outbox y los reparte entre un número fijo de workers.
+ * Solo reclama tantos registros como workers libres; el worker renueva el lease mientras recorre
+ * los tokens, y si una instancia cae, el lease vence y otra instancia (o esta al reiniciar) retoma el envío.
+ */
+@Component
+public class PushOutboxScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PushOutboxScheduler.class);
+
+    private final PushOutboxRepository pushOutboxRepository;
+    private final PushOutboxService pushOutboxService;
+    private final FcmSender fcmSender;
+    private final Semaphore workersLibres;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PushOutboxScheduler(PushOutboxRepository pushOutboxRepository,
+                               PushOutboxService pushOutboxService,
+                               FcmSender fcmSender,
+                               @Value("${push.workers:4}") int numeroWorkers) {
+        this.pushOutboxRepository = pushOutboxRepository;
+        this.pushOutboxService = pushOutboxService;
+        this.fcmSender = fcmSender;
+        this.workersLibres = new Semaphore(numeroWorkers);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        workers.shutdown();
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void despacharPendientes() {
+        // Sin Firebase los envíos se quedan pendientes hasta que se configure
+        if (!fcmSender.disponible()) {
+            return;
+        }
+
+        int libres = workersLibres.availablePermits();
+        if (libres == 0) {
+            return;
+        }
+
+        List<PushOutbox> reclamados = pushOutboxRepository.reclamarPendientes(libres, PushOutboxService.LEASE);
+        for (PushOutbox envio : reclamados) {
+            workersLibres.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    pushOutboxService.procesar(envio);
+                } finally {
+                    workersLibres.release();
+                }
+            });
+        }
+    }
+
+    @Scheduled(cron = "0 0 4 * * *")
+    public void limpiarEnviados() {
+        int eliminados = pushOutboxService.limpiarEnviados();
+        if (eliminados > 0) {
+            logger.info("Envíos push antiguos eliminados: {}", eliminados);
+        }
+    }
+}
@@ -1,24 +1,17 @@
 package ipn.mx.isc.sismosapp.backend.scheduler;
 
-import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
-import ipn.mx.isc.sismosapp.backend.model.mapper.SismoMapper;
 import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
-import ipn.mx.isc.sismosapp.backend.repository.SismoRepository;
-import ipn.mx.isc.sismosapp.backend.service.NotificationService;
-import ipn.mx.isc.sismosapp.backend.service.RedisCacheService;
 import ipn.mx.isc.sismosapp.backend.service.ScraperService;
-import ipn.mx.isc.sismosapp.backend.service.FcmDataMessagingService;
+import ipn.mx.isc.sismosapp.backend.service.SismosScrapeadosService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Scheduler responsable del scraping periódico. 
@@ -28,96 +21,66 @@ import java.util.List;
 public class SismoScraperScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(SismoScraperScheduler.class);
-    private static final int MAX_SISMOS_RECIENTES = 100;
 
     @Autowired
     private ScraperService scraperService;
 
     @Autowired
-    private SismoRepository sismoRepository;
+    private SismosScrapeadosService sismosScrapeadosService;
 
-    @Autowired
-    private RedisCacheService redisCacheService;
-
-    @Autowired
-    private FcmDataMessagingService fcmDataMessagingService;
+    // Contadores de ticks: omitidos (página sin cambios) vs procesados
+    private final AtomicLong ticksOmitidos = new AtomicLong();
+    private final AtomicLong ticksProcesados = new AtomicLong();
 
-    @Autowired
-    private SismoMapper sismoMapper;
-
-    @Autowired
-    private NotificationService notificationService;
+    // Con hilos virtuales el scheduler no espera al tick anterior; evita scrapings simultáneos
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
 
     /**
      * Ejecuta el scraping cada 60 segundos
-     * Extrae sismos del SSN, los almacena en BD y actualiza cache
+     * Extrae sismos del SSN, los almacena en BD y actualiza cache.
+     * Sin transacción: un tick omitido o una página sin cambios no toman conexión del pool;
+     * solo el almacenamiento (SismosScrapeadosService) es transaccional
      */
     @Scheduled(fixedRate = 60000)
-    @Transactional
     public void scrapearYAlmacenarSismos() {
-
-        List<Sismo> sismosExtraidos = scraperService.scrapeSismos();
-
-        if (sismosExtraidos.isEmpty()) {
-            logger.warn("No se extrajeron sismos del scrapper");
+        if (!enEjecucion.compareAndSet(false, true)) {
+            logger.warn("Tick omitido: el scraping anterior sigue en ejecución");
             return;
         }
+        try {
+            procesarTick();
+        } finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    private void procesarTick() {
+        ScraperService.ResultadoScraping resultado = scraperService.scrapeSismos();
 
-        // Obtener snapshot actual de Redis para verificación rápida
-        List<SismoDTO> sismosEnCache = redisCacheService.obtenerSismosRecientes();
-        
-        List<SismoDTO> nuevosSismos = new ArrayList<>();
-        int nuevos = 0;
-        int duplicados = 0;
-
-        for (Sismo sismo : sismosExtraidos) {
-            // Verificar si ya existe en cache 
-            if (sismosEnCache != null && sismosEnCache.stream().anyMatch(s -> 
-                s.getFechaHora().equals(sismo.getFechaHora()) &&
-                s.getLatitud().equals(sismo.getLatitud()) &&
-                s.getLongitud().equals(sismo.getLongitud()) &&
-                s.getMagnitud().equals(sismo.getMagnitud())
-            )) {
-                duplicados++;
-                continue;
-            }
-
-            // Verificar en BD (solo si no está en cache)
-            if (sismoRepository.findByFechaHoraAndLatitudAndLongitudAndMagnitud(
-                sismo.getFechaHora(),
-                sismo.getLatitud(),
-                sismo.getLongitud(),
-                sismo.getMagnitud()
-            ).isEmpty()) {
-                Sismo sismoGuardado = sismoRepository.save(sismo);
-                SismoDTO nuevoSismoDTO = sismoMapper.toDTO(sismoGuardado);
-                nuevosSismos.add(nuevoSismoDTO);
-                nuevos++;
-            } else {
-                duplicados++;
-            }
+        if (resultado.sinCambios()) {
+            long omitidos = ticksOmitidos.incrementAndGet();
+            logger.info("Tick omitido: página sin cambios. Omitidos: {}, Procesados: {}",
+                omitidos, ticksProcesados.get());
+            return;
         }
+        ticksProcesados.incrementAndGet();
 
-        logger.info("Scraping finalizado. Nuevos: {}, Duplicados: {}", nuevos, duplicados);
+        List<Sismo> sismosExtraidos = resultado.sismos();
 
-        // Si hay nuevos sismos, actualizar cache y enviar via FCM data messaging
-        if (!nuevosSismos.isEmpty()) {
-            actualizarCacheConNuevosSismos();
-            fcmDataMessagingService.enviarSismosADispositivos(nuevosSismos);
-            notificationService.notificarSismosCriticos(nuevosSismos, 5.5);
+        if (sismosExtraidos.isEmpty()) {
+            logger.warn("No se extrajeron sismos del scrapper");
+            return;
         }
-        
+
+        sismosScrapeadosService.almacenar(resultado);
         logger.info("");
     }
 
-    /**
-     * Actualiza el cache de Redis con los sismos más recientes de la BD
-     */
-    private void actualizarCacheConNuevosSismos() {
-        var pageable = PageRequest.of(0, MAX_SISMOS_RECIENTES, Sort.by(Sort.Direction.DESC, "fechaHora"));
-        List<SismoDTO> sismosActualizados = sismoMapper.toDTOList(
-            sismoRepository.findAll(pageable).getContent()
-        );
-        redisCacheService.guardarSismosRecientes(sismosActualizados);
+    public long getTicksOmitidos() {
+        return ticksOmitidos.get();
+    }
+
+    public long getTicksProcesados() {
+        return ticksProcesados.get();
     }
 }
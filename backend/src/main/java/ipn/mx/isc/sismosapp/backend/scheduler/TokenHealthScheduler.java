@@ -0,0 +1,31 @@
+package ipn.mx.isc.sismosapp.backend.scheduler;
+
+import ipn.mx.isc.sismosapp.backend.service.TokenHealthService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Purga diaria de tokens FCM muertos, en bloque y fuera del camino de envío
+ */
+@Component
+public class TokenHealthScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenHealthScheduler.class);
+
+    private final TokenHealthService tokenHealthService;
+
+    public TokenHealthScheduler(TokenHealthService tokenHealthService) {
+        this.tokenHealthService = tokenHealthService;
+    }
+
+    @Scheduled(cron = "0 30 4 * * *")
+    public void purgarTokensMuertos() {
+        try {
+            tokenHealthService.eliminarTokensMuertos();
+        } catch (Exception e) {
+            logger.error("Error purgando tokens muertos: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ipn.mx.isc.sismosapp.backend.scheduler;
+
+import com.google.firebase.messaging.FirebaseMessagingException;
+import ipn.mx.isc.sismosapp.backend.model.entities.DeviceToken;
+import ipn.mx.isc.sismosapp.backend.repository.DeviceTokenRepository;
+import ipn.mx.isc.sismosapp.backend.service.FcmSender;
+import ipn.mx.isc.sismosapp.backend.service.TokenHealthService;
+import ipn.mx.isc.sismosapp.backend.service.TopicosFcm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reconcilia con FCM los tópicos de los tokens pendientes (topicosSincronizados = false):
+ * suscribe los que faltan según sus preferencias y quita los que sobran según topicosSuscritos.
+ * Cubre tanto los tokens nuevos o con preferencias modificadas como la migración de los tokens
+ * existentes en device_tokens, que inician sin sincronizar. Mientras un token está pendiente,
+ * las alertas críticas le llegan por token (NotificationService).
+ */
+@Component
+public class TopicosFcmScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicosFcmScheduler.class);
+
+    private final DeviceTokenRepository deviceTokenRepository;
+    private final FcmSender fcmSender;
+    private final TokenHealthService tokenHealthService;
+
+    public TopicosFcmScheduler(DeviceTokenRepository deviceTokenRepository, FcmSender fcmSender,
+                               TokenHealthService tokenHealthService) {
+        this.deviceTokenRepository = deviceTokenRepository;
+        this.fcmSender = fcmSender;
+        this.tokenHealthService = tokenHealthService;
+    }
+
+    /**
+     * Recorre los pendientes en páginas de 1000 (límite de FCM por suscripción).
+     * Se guarda lo que FCM confirmó aunque falle una parte; el token queda pendiente hasta que sus
+     * tópicos suscritos coincidan con sus preferencias. Los rechazados por FCM suman un fallo en su salud
+     * para que los muertos terminen eliminados.
+     */
+    @Scheduled(initialDelay = 10000, fixedDelay = 60000)
+    public void sincronizarTopicos() {
+        if (!fcmSender.disponible()) {
+            return;
+        }
+
+        long ultimoId = 0;
+        int sincronizados = 0;
+        int fallidos = 0;
+
+        while (true) {
+            List<DeviceToken> pendientes =
+                deviceTokenRepository.findTop1000ByTopicosSincronizadosFalseAndIdGreaterThanOrderByIdAsc(ultimoId);
+            if (pendientes.isEmpty()) {
+                break;
+            }
+            ultimoId = pendientes.get(pendientes.size() - 1).getId();
+
+            // Diferencia entre lo deseado y lo suscrito, agrupada por tópico para una llamada por tópico
+            Map<String, List<String>> altas = new LinkedHashMap<>();
+            Map<String, List<String>> bajas = new LinkedHashMap<>();
+            for (DeviceToken deviceToken : pendientes) {
+                Set<String> deseados = new LinkedHashSet<>(TopicosFcm.topicosDe(deviceToken));
+                Set<String> suscritos = TopicosFcm.suscritosDe(deviceToken);
+                for (String topico : deseados) {
+                    if (!suscritos.contains(topico)) {
+                        altas.computeIfAbsent(topico, t -> new ArrayList<>()).add(deviceToken.getToken());
+                    }
+                }
+                for (String topico : suscritos) {
+                    if (!deseados.contains(topico)) {
+                        bajas.computeIfAbsent(topico, t -> new ArrayList<>()).add(deviceToken.getToken());
+                    }
+                }
+            }
+
+            Map<String, Set<String>> topicosConError = new HashMap<>();
+            Set<String> rechazados = new HashSet<>();
+            aplicar(altas, true, topicosConError, rechazados);
+            aplicar(bajas, false, topicosConError, rechazados);
+            tokenHealthService.registrarFallos(List.copyOf(rechazados));
+
+            for (DeviceToken deviceToken : pendientes) {
+                Set<String> deseados = new LinkedHashSet<>(TopicosFcm.topicosDe(deviceToken));
+                Set<String> confirmados = TopicosFcm.suscritosDe(deviceToken);
+                Set<String> conError = topicosConError.getOrDefault(deviceToken.getToken(), Set.of());
+                for (String topico : deseados) {
+                    if (!conError.contains(topico)) {
+                        confirmados.add(topico);
+                    }
+                }
+                confirmados.removeIf(topico -> !deseados.contains(topico) && !conError.contains(topico));
+
+                boolean completo = confirmados.equals(deseados);
+                String suscritos = TopicosFcm.unir(confirmados);
+                int actualizados = deviceTokenRepository.registrarTopicos(
+                    deviceToken.getId(), suscritos, completo, deviceToken.getEstado(), deviceToken.getMagnitudMinima()
+                );
+                if (actualizados == 0) {
+                    // Las preferencias cambiaron mientras tanto: se guarda lo suscrito y sigue pendiente
+                    deviceTokenRepository.registrarTopicosSuscritos(deviceToken.getId(), suscritos);
+                    completo = false;
+                }
+                if (completo) {
+                    sincronizados++;
+                } else {
+                    fallidos++;
+                }
+            }
+        }
+
+        if (sincronizados > 0 || fallidos > 0) {
+            logger.info("Tópicos FCM sincronizados. Tokens: {}, Pendientes: {}", sincronizados, fallidos);
+        }
+    }
+
+    /**
+     * Suscribe (o desuscribe) los tokens de cada tópico; anota por token los tópicos que no se aplicaron
+     */
+    private void aplicar(Map<String, List<String>> tokensPorTopico, boolean suscribir,
+                         Map<String, Set<String>> topicosConError, Set<String> rechazados) {
+        tokensPorTopico.forEach((topico, tokens) -> {
+            List<String> fallidos;
+            try {
+                fallidos = suscribir
+                    ? fcmSender.suscribirATopico(tokens, topico)
+                    : fcmSender.desuscribirDeTopico(tokens, topico);
+                rechazados.addAll(fallidos);
+            } catch (FirebaseMessagingException e) {
+                logger.error("Error {} {} tokens del tópico {}: {}",
+                    suscribir ? "suscribiendo" : "desuscribiendo", tokens.size(), topico, e.getMessage());
+                fallidos = tokens;
+            }
+            for (String token : fallidos) {
+                topicosConError.computeIfAbsent(token, t -> new HashSet<>()).add(topico);
+            }
+        });
+    }
+}
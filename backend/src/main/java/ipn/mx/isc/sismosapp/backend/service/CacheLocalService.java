@@ -0,0 +1,150 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ipn.mx.isc.sismosapp.backend.model.dto.CursorPagina;
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+import ipn.mx.isc.sismosapp.backend.model.responses.RespuestaPrecalculada;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache en memoria (near cache) de los sismos recientes, delante de Redis.
+ * Guarda la lista ya deserializada para atender picos de tráfico sin red ni Jackson por petición.
+ * Se invalida por pub/sub de Redis cuando cualquier instancia modifica el cache; la edad máxima
+ * limita la inconsistencia si se pierde un mensaje.
+ * Por cada tamaño de página solicitado también guarda el cuerpo HTTP final (JSON y gzip) y su ETag.
+ */
+@Service
+public class CacheLocalService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheLocalService.class);
+    private static final long EDAD_MAXIMA_MS = 30_000;
+
+    private final RedisCacheService redisCacheService;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    // Cada invalidación incrementa la generación; una carga iniciada antes no se publica
+    private final AtomicLong generacion = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(List<SismoDTO> sismos, long cargadoEn, Map<Integer, RespuestaPrecalculada> respuestas) {
+
+        Snapshot(List<SismoDTO> sismos, long cargadoEn) {
+            this(sismos, cargadoEn, new ConcurrentHashMap<>());
+        }
+    }
+
+    public CacheLocalService(RedisCacheService redisCacheService,
+                             RedisMessageListenerContainer listenerContainer,
+                             ObjectMapper objectMapper) {
+        this.redisCacheService = redisCacheService;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void suscribir() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisCacheService.CANAL_INVALIDACION_RECIENTES));
+    }
+
+    /**
+     * Sismos recientes desde memoria; si no hay copia vigente se carga desde Redis.
+     * Devuelve null si Redis tampoco los tiene.
+     */
+    public List<SismoDTO> obtenerSismosRecientes() {
+        Snapshot actual = obtenerSnapshot();
+        return actual != null ? actual.sismos() : null;
+    }
+
+    /**
+     * Cuerpo HTTP de los primeros {@code size} sismos recientes, serializado una sola vez por versión del cache.
+     * Devuelve null si no hay sismos en cache.
+     */
+    public RespuestaPrecalculada obtenerRespuestaRecientes(int size) {
+        Snapshot actual = obtenerSnapshot();
+        if (actual == null) {
+            return null;
+        }
+        return actual.respuestas().computeIfAbsent(size, tamano ->
+            precalcular(actual.sismos().subList(0, Math.min(tamano, actual.sismos().size())), tamano)
+        );
+    }
+
+    private Snapshot obtenerSnapshot() {
+        Snapshot actual = snapshot;
+        if (actual != null && System.currentTimeMillis() - actual.cargadoEn() < EDAD_MAXIMA_MS) {
+            return actual;
+        }
+
+        long generacionInicial = generacion.get();
+        List<SismoDTO> sismos = redisCacheService.obtenerSismosRecientes();
+        if (sismos == null) {
+            return null;
+        }
+
+        Snapshot nuevo = new Snapshot(List.copyOf(sismos), System.currentTimeMillis());
+        if (generacion.get() == generacionInicial) {
+            snapshot = nuevo;
+        }
+        return nuevo;
+    }
+
+    private RespuestaPrecalculada precalcular(List<SismoDTO> sismos, int tamano) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(sismos);
+
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(comprimido)) {
+                gzip.write(json);
+            }
+
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            String etag = "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+
+            String cursorSiguiente = null;
+            if (sismos.size() == tamano) {
+                SismoDTO ultimo = sismos.get(sismos.size() - 1);
+                cursorSiguiente = new CursorPagina(ultimo.getFechaHora(), ultimo.getId()).codificar();
+            }
+
+            return new RespuestaPrecalculada(json, comprimido.toByteArray(), etag, cursorSiguiente);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la lista de sismos", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public void invalidar() {
+        generacion.incrementAndGet();
+        snapshot = null;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        logger.debug("Invalidación del cache local de sismos recientes");
+        invalidar();
+    }
+}
@@ -1,150 +1,267 @@
 package ipn.mx.isc.sismosapp.backend.service;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
 import ipn.mx.isc.sismosapp.backend.model.entities.SismoH;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
 import ipn.mx.isc.sismosapp.backend.repository.SismoHRepository;
+import ipn.mx.isc.sismosapp.backend.repository.SismoHRepositoryCustom.ResultadoCarga;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class CsvUploadService {
 
     private static final Logger logger = LoggerFactory.getLogger(CsvUploadService.class);
     private static final int BATCH_SIZE = 5000; // Aumentado para mayor velocidad
+    private static final int LINEAS_CABECERA = 4;
 
     @Autowired
     private SismoHRepository sismoHRepository;
 
+    // lotes (INSERT ... ON CONFLICT DO NOTHING por lotes) o copy (COPY FROM STDIN + combinación por clave natural).
+    // COPY es opcional hasta medirlo con benchmark/carga_csv.sh
+    @Value("${csv.import.modo:lotes}")
+    private String modo;
+
+    // Hilos que convierten las filas del CSV; 0 = uno por núcleo
+    @Value("${csv.import.convertidores:0}")
+    private int convertidores;
+
+    // Lotes en vuelo a la vez en modo lotes; cada uno ocupa una conexión del pool
+    @Value("${csv.import.escrituras:4}")
+    private int escrituras;
+
+    @PostConstruct
+    public void validarConfiguracion() {
+        if (convertidores < 0) {
+            throw new IllegalStateException("csv.import.convertidores no puede ser negativo (0 = uno por núcleo)");
+        }
+        if (escrituras <= 0) {
+            throw new IllegalStateException("csv.import.escrituras debe ser mayor a 0");
+        }
+        ModoImportacion.desde(modo);
+    }
+
     /**
-     * Procesa el CSV de forma asíncrona para no bloquear
+     * Importa el CSV con el modo configurado en csv.import.modo
      */
-    public CompletableFuture<String> procesarCsvAsync(MultipartFile file) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return procesarCsv(file);
-            } catch (Exception e) {
-                logger.error("Error procesando CSV: {}", e.getMessage(), e);
-                return "Error: " + e.getMessage();
-            }
-        });
+    public String procesarCsv(InputStream entrada, String nombre) throws IOException {
+        return procesarCsv(entrada, nombre, ModoImportacion.desde(modo));
     }
 
-    @Transactional
-    public String procesarCsv(MultipartFile file) throws IOException, CsvException {
-        logger.info("Iniciando procesamiento de CSV: {} ({} bytes)", 
-            file.getOriginalFilename(), file.getSize());
+    /**
+     * Importa el CSV completo en una sola pasada y devuelve el resumen
+     */
+    public String procesarCsv(InputStream entrada, String nombre, ModoImportacion modo) throws IOException {
+        logger.info("Iniciando procesamiento de CSV: {} (modo {})", nombre, modo);
 
         long startTime = System.currentTimeMillis();
-        List<SismoH> batch = new ArrayList<>(BATCH_SIZE);
-        int lineasProcesadas = 0;
-        int lineasOmitidas = 0;
-        int duplicados = 0;
-        int totalGuardados = 0;
+        ResultadoImportacion resultado = importar(entrada, 0, LINEAS_CABECERA, modo);
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-             CSVReader csvReader = new CSVReader(reader)) {
+        long duration = System.currentTimeMillis() - startTime;
+        String mensaje = String.format(
+            "CSV procesado en %d ms (modo %s). Procesadas: %d, Guardadas: %d, Omitidas: %d, Duplicados: %d. Colas: %s",
+            duration, modo, resultado.leidas(), resultado.insertadas(), resultado.omitidas(),
+            resultado.leidas() - resultado.insertadas(), resultado.colas()
+        );
 
-            List<String[]> records = csvReader.readAll();
-            logger.info("Total de líneas leídas: {}", records.size());
+        logger.info(mensaje);
+        return mensaje;
+    }
 
-            // Saltar las primeras 4 líneas de cabecera del SSN
-            for (int i = 4; i < records.size(); i++) {
-                String[] row = records.get(i);
+    /**
+     * Importa un tramo del archivo de una importación (ver ImportacionCsvService).
+     * Con el modo configurado: si la importación se interrumpe, el tramo en curso se vuelve a importar
+     * y ambos modos omiten por clave natural las filas que ya habían entrado.
+     *
+     * @param lineaInicial Línea del archivo donde empieza el tramo; la cabecera solo se salta en el primero
+     */
+    public ResultadoImportacion importarTramo(InputStream tramo, long lineaInicial) throws IOException {
+        return importar(tramo, lineaInicial, lineaInicial == 0 ? LINEAS_CABECERA : 0, ModoImportacion.desde(modo));
+    }
 
-                try {
-                    if (row.length < 10) {
-                        lineasOmitidas++;
-                        continue;
-                    }
+    /**
+     * Importa la entrada en una sola pasada con {@link PipelineImportacionCsv}: un hilo lee el CSV,
+     * csv.import.convertidores hilos convierten las filas y este hilo las escribe, todos unidos por colas
+     * acotadas, así que en memoria solo están los bloques en las colas y los lotes en vuelo.
+     * COPY envía todas las filas por el protocolo de carga masiva de PostgreSQL y las combina
+     * en una sola sentencia; LOTES inserta lotes de BATCH_SIZE, hasta csv.import.escrituras a la vez.
+     * En ambos modos las filas que ya existen por clave natural se omiten y se cuentan como duplicados.
+     */
+    private ResultadoImportacion importar(InputStream entrada, long lineaInicial, int lineasCabecera,
+                                          ModoImportacion modo) throws IOException {
+        int hilos = convertidores > 0 ? convertidores : Runtime.getRuntime().availableProcessors();
 
-                    SismoH sismo = new SismoH();
-                    sismo.setFecha(row[0].trim());
-                    sismo.setHora(row[1].trim());
-                    sismo.setMagnitud(Double.parseDouble(row[2].trim()));
-                    sismo.setLatitud(Double.parseDouble(row[3].trim()));
-                    sismo.setLongitud(Double.parseDouble(row[4].trim()));
-                    sismo.setProfundidad(Double.parseDouble(row[5].trim()));
-                    sismo.setReferenciaLocalizacion(row[6].trim());
-                    sismo.setFechaUtc(row[7].trim());
-                    sismo.setHoraUtc(row[8].trim());
-                    sismo.setEstatus(row[9].trim());
-
-                    // Convertir a OffsetDateTime (zona horaria de México)
-                    String fechaHoraStr = row[0].trim() + "T" + row[1].trim() + "-06:00";
-                    OffsetDateTime fechaHora = OffsetDateTime.parse(fechaHoraStr);
-                    sismo.setFechaHora(fechaHora);
-
-                    batch.add(sismo);
-                    lineasProcesadas++;
-
-                    // Guardar por lotes grandes para máxima velocidad
-                    if (batch.size() >= BATCH_SIZE) {
-                        int guardados = guardarBatch(batch);
-                        totalGuardados += guardados;
-                        duplicados += (batch.size() - guardados);
-                        batch.clear();
-                        
-                        if (lineasProcesadas % 50000 == 0) {
-                            logger.info("Progreso: {} líneas procesadas, {} guardadas", 
-                                lineasProcesadas, totalGuardados);
-                        }
-                    }
+        // CSVReader ya lee con buffer
+        try (Reader reader = new InputStreamReader(entrada, StandardCharsets.UTF_8)) {
+
+            PipelineImportacionCsv pipeline = new PipelineImportacionCsv(
+                reader, lineaInicial, lineasCabecera, hilos, this::crearSismo
+            );
+            ResultadoCarga resultado;
+            String colas;
+            if (modo == ModoImportacion.COPY) {
+                resultado = pipeline.ejecutar(sismoHRepository::cargarConCopy);
+                colas = pipeline.profundidades();
+            } else {
+                EscrituraPorLotes escritura = new EscrituraPorLotes();
+                resultado = pipeline.ejecutar(filas -> guardarPorLotes(filas, escritura));
+                colas = pipeline.profundidades() + ", escrituras en vuelo " + escritura.enVuelo;
+            }
+            return new ResultadoImportacion(resultado.leidas(), resultado.insertadas(), pipeline.omitidas(), colas);
+        }
+    }
+
+    /**
+     * Inserta las filas en lotes de BATCH_SIZE con varios lotes en vuelo
+     */
+    private ResultadoCarga guardarPorLotes(Iterator<SismoH> filas, EscrituraPorLotes escritura) {
+        List<SismoH> batch = new ArrayList<>(BATCH_SIZE);
+        long lineasProcesadas = 0;
+
+        try (escritura) {
+            while (filas.hasNext()) {
+                batch.add(filas.next());
+                lineasProcesadas++;
+
+                // Guardar por lotes grandes para máxima velocidad
+                if (batch.size() >= BATCH_SIZE) {
+                    escritura.enviar(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
 
-                } catch (Exception e) {
-                    logger.warn("Error en línea {}: {}", i, e.getMessage());
-                    lineasOmitidas++;
+                    if (lineasProcesadas % 50000 == 0) {
+                        logger.info("Progreso: {} líneas procesadas, {} guardadas",
+                            lineasProcesadas, escritura.insertados.get());
+                    }
                 }
             }
 
             // Guardar los registros restantes
             if (!batch.isEmpty()) {
-                int guardados = guardarBatch(batch);
-                totalGuardados += guardados;
-                duplicados += (batch.size() - guardados);
-                batch.clear();
+                escritura.enviar(batch);
             }
         }
+        return new ResultadoCarga(lineasProcesadas, escritura.insertados());
+    }
 
-        long duration = (System.currentTimeMillis() - startTime) / 1000;
-        String mensaje = String.format(
-            "CSV procesado en %d segundos. Procesadas: %d, Guardadas: %d, Omitidas: %d, Duplicados: %d",
-            duration, lineasProcesadas, totalGuardados, lineasOmitidas, duplicados
-        );
+    /**
+     * Convierte una fila del catálogo del SSN; null si no tiene todas las columnas
+     */
+    private SismoH crearSismo(String[] row) {
+        if (row.length < 10) {
+            return null;
+        }
 
-        logger.info(mensaje);
-        return mensaje;
+        SismoH sismo = new SismoH();
+        sismo.setFecha(row[0].trim());
+        sismo.setHora(row[1].trim());
+        sismo.setMagnitud(Double.parseDouble(row[2].trim()));
+        sismo.setLatitud(Double.parseDouble(row[3].trim()));
+        sismo.setLongitud(Double.parseDouble(row[4].trim()));
+        sismo.setProfundidad(Double.parseDouble(row[5].trim()));
+        sismo.setReferenciaLocalizacion(row[6].trim());
+        sismo.setEstado(EstadoMexicano.fromLugar(sismo.getReferenciaLocalizacion()).orElse(null));
+        sismo.setFechaUtc(row[7].trim());
+        sismo.setHoraUtc(row[8].trim());
+        sismo.setEstatus(row[9].trim());
+
+        // Convertir a OffsetDateTime (zona horaria de México)
+        String fechaHoraStr = row[0].trim() + "T" + row[1].trim() + "-06:00";
+        sismo.setFechaHora(OffsetDateTime.parse(fechaHoraStr));
+        return sismo;
     }
 
-    private int guardarBatch(List<SismoH> batch) {
-        try {
-            List<SismoH> guardados = sismoHRepository.saveAll(batch);
-            return guardados.size();
-        } catch (Exception e) {
-            logger.error("Error guardando batch: {}", e.getMessage());
-            // Intentar guardar uno por uno en caso de error
-            int count = 0;
-            for (SismoH sismo : batch) {
+    /**
+     * Lotes de INSERT ... ON CONFLICT DO NOTHING en vuelo, hasta csv.import.escrituras a la vez.
+     * Al llegar al límite el siguiente lote espera, lo que a su vez frena a los convertidores y al lector.
+     * Si un lote falla, la importación se detiene con ese error.
+     */
+    private final class EscrituraPorLotes implements AutoCloseable {
+
+        private final Semaphore permisos = new Semaphore(escrituras);
+        private final ExecutorService escritores = Executors.newVirtualThreadPerTaskExecutor();
+        private final AtomicLong insertados = new AtomicLong();
+        private final AtomicReference<RuntimeException> fallo = new AtomicReference<>();
+        private final PipelineImportacionCsv.Profundidad enVuelo = new PipelineImportacionCsv.Profundidad(escrituras);
+
+        void enviar(List<SismoH> lote) {
+            verificarFallo();
+            try {
+                permisos.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Importación interrumpida");
+            }
+            enVuelo.registrar(escrituras - permisos.availablePermits());
+            escritores.execute(() -> {
                 try {
-                    sismoHRepository.save(sismo);
-                    count++;
-                } catch (Exception ex) {
-                    // Ignorar duplicados
+                    insertados.addAndGet(sismoHRepository.insertarIgnorandoDuplicados(lote));
+                } catch (RuntimeException e) {
+                    fallo.compareAndSet(null, e);
+                } finally {
+                    permisos.release();
+                }
+            });
+        }
+
+        long insertados() {
+            verificarFallo();
+            return insertados.get();
+        }
+
+        // Espera a que terminen los lotes en vuelo
+        @Override
+        public void close() {
+            escritores.close();
+        }
+
+        private void verificarFallo() {
+            RuntimeException error = fallo.get();
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Filas leídas, insertadas y omitidas (incompletas o inválidas), y profundidad de las colas del pipeline
+     */
+    public record ResultadoImportacion(long leidas, long insertadas, long omitidas, String colas) {
+    }
+
+    /**
+     * Cómo se escriben las filas importadas en sismosh
+     */
+    public enum ModoImportacion {
+        COPY,
+        LOTES;
+
+        public static ModoImportacion desde(String valor) {
+            for (ModoImportacion modo : values()) {
+                if (modo.name().equalsIgnoreCase(valor.trim())) {
+                    return modo;
                 }
             }
-            return count;
+            throw new IllegalArgumentException("Modo de importación no válido: " + valor + " (copy o lotes)");
         }
     }
 }
\ No newline at end of file
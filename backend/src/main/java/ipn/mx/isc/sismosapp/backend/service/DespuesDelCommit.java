@@ -0,0 +1,31 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Acciones que solo deben correr si la transacción en curso se confirma: caches, notificaciones,
+ * tareas en segundo plano que leen lo que la transacción escribió.
+ * Si la transacción se revierte la acción se descarta.
+ */
+public final class DespuesDelCommit {
+
+    private DespuesDelCommit() {
+    }
+
+    /**
+     * Ejecuta la acción al confirmar la transacción en curso, o de inmediato si no hay transacción activa
+     */
+    public static void ejecutar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
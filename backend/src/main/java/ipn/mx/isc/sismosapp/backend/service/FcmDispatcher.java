@@ -0,0 +1,120 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.google.firebase.messaging.MulticastMessage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Despacho de mensajes FCM a muchos tokens.
+ * Recorre los tokens en lotes de 500 (límite de sendEachForMulticast) y los envía en paralelo
+ * con una concurrencia máxima; agrega los resultados y registra la salud de cada token por lote
+ * (elimina los que FCM reporta como no registrados y cuenta los fallos de los demás).
+ */
+@Service
+public class FcmDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(FcmDispatcher.class);
+    public static final int TAMANO_LOTE = 500;
+
+    private final FcmSender fcmSender;
+    private final TokenStreamService tokenStreamService;
+    private final TokenHealthService tokenHealthService;
+    private final Semaphore permisos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Resultado agregado de un envío
+     *
+     * @param duracionMs Tiempo hasta que respondió el último lote (tiempo al último dispositivo)
+     */
+    public record ResultadoEnvio(int tokens, int lotes, int exitosos, int fallidos, int tokensInvalidos, long duracionMs) {
+    }
+
+    public FcmDispatcher(FcmSender fcmSender,
+                         TokenStreamService tokenStreamService,
+                         TokenHealthService tokenHealthService,
+                         @Value("${fcm.dispatch.concurrencia:16}") int concurrencia) {
+        this.fcmSender = fcmSender;
+        this.tokenStreamService = tokenStreamService;
+        this.tokenHealthService = tokenHealthService;
+        this.permisos = new Semaphore(concurrencia);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdown();
+    }
+
+    public boolean disponible() {
+        return fcmSender.disponible();
+    }
+
+    /**
+     * Envía uno o varios mensajes a todos los tokens registrados en una sola pasada.
+     * Los tokens se leen por páginas del tamaño de un lote y cada página se envía (con cada mensaje)
+     * en cuanto se lee; la lectura se detiene mientras no haya lugar en la concurrencia máxima,
+     * así que en memoria solo están los lotes en vuelo.
+     *
+     * @param mensajes Cada función construye un mensaje multicast para un lote de tokens
+     * @param porPagina Se invoca antes de enviar cada página; si lanza una excepción el recorrido se detiene
+     */
+    public ResultadoEnvio enviarATodos(List<Function<List<String>, MulticastMessage>> mensajes, Runnable porPagina) {
+        long inicio = System.nanoTime();
+
+        LongAdder exitosos = new LongAdder();
+        LongAdder fallidos = new LongAdder();
+        LongAdder invalidos = new LongAdder();
+        AtomicInteger lotes = new AtomicInteger();
+        // Espera a los lotes de este envío sin bloquear los de otros envíos concurrentes
+        Phaser enVuelo = new Phaser(1);
+
+        long tokens = tokenStreamService.recorrer(TAMANO_LOTE, lote -> {
+            porPagina.run();
+            for (Function<List<String>, MulticastMessage> mensaje : mensajes) {
+                permisos.acquireUninterruptibly();
+                enVuelo.register();
+                lotes.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        FcmSender.ResultadoLote resultado = fcmSender.enviarMulticast(lote, mensaje.apply(lote));
+                        exitosos.add(resultado.exitosos());
+                        fallidos.add(resultado.fallidos());
+                        invalidos.add(resultado.tokensInvalidos().size());
+                        tokenHealthService.registrarResultado(resultado);
+                    } catch (Exception e) {
+                        // Falla de todo el lote (red, credenciales, cuota)
+                        logger.error("Error enviando lote FCM de {} tokens: {}", lote.size(), e.getMessage());
+                        fallidos.add(lote.size());
+                    } finally {
+                        permisos.release();
+                        enVuelo.arriveAndDeregister();
+                    }
+                });
+            }
+        });
+        enVuelo.arriveAndAwaitAdvance();
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        ResultadoEnvio resultado = new ResultadoEnvio(
+            (int) tokens, lotes.get(), exitosos.intValue(), fallidos.intValue(), invalidos.intValue(), duracionMs
+        );
+        if (tokens > 0) {
+            logger.info("Envío FCM: {} tokens en {} lotes. Exitosos: {}, Fallidos: {}, Inválidos: {}, Último dispositivo: {} ms",
+                resultado.tokens(), resultado.lotes(), resultado.exitosos(), resultado.fallidos(),
+                resultado.tokensInvalidos(), resultado.duracionMs());
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,59 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MulticastMessage;
+
+import java.util.List;
+
+/**
+ * Envío de un lote de mensajes FCM (máximo 500 tokens por llamada).
+ * Existe una implementación real sobre Firebase y una simulada para medir el despacho sin red.
+ */
+public interface FcmSender {
+
+    /**
+     * Indica si el sender puede enviar (Firebase inicializado, o simulado)
+     */
+    boolean disponible();
+
+    /**
+     * Envía el mensaje a los tokens del lote
+     *
+     * @param tokens  Tokens destino, en el mismo orden con que se construyó el mensaje
+     * @param mensaje Mensaje multicast que contiene esos tokens
+     */
+    ResultadoLote enviarMulticast(List<String> tokens, MulticastMessage mensaje) throws FirebaseMessagingException;
+
+    /**
+     * Envía un mensaje dirigido a un tópico o condición de tópicos
+     *
+     * @return Id del mensaje asignado por FCM
+     */
+    String enviarMensaje(Message mensaje) throws FirebaseMessagingException;
+
+    /**
+     * Suscribe tokens a un tópico (máximo 1000 por llamada)
+     *
+     * @return Tokens que no se pudieron suscribir
+     */
+    List<String> suscribirATopico(List<String> tokens, String topico) throws FirebaseMessagingException;
+
+    /**
+     * Elimina la suscripción de tokens a un tópico (máximo 1000 por llamada)
+     *
+     * @return Tokens que no se pudieron desuscribir
+     */
+    List<String> desuscribirDeTopico(List<String> tokens, String topico) throws FirebaseMessagingException;
+
+    /**
+     * Resultado de un lote
+     *
+     * @param tokensInvalidos Tokens que FCM reporta como no registrados (se eliminan)
+     * @param tokensConFallo  Tokens con un error atribuible al dispositivo (cuentan para su salud)
+     * @param tokensExitosos  Tokens entregados
+     */
+    record ResultadoLote(int exitosos, int fallidos, List<String> tokensInvalidos,
+                         List<String> tokensConFallo, List<String> tokensExitosos) {
+    }
+}
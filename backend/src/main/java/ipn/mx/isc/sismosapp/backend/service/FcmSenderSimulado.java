@@ -0,0 +1,79 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MulticastMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sender simulado para medir el despacho sin Firebase (fcm.sender=simulado).
+ * Cada lote espera una latencia fija, como una llamada a FCM, y reporta fallos según la tasa configurada.
+ * No reporta tokens inválidos ni con fallo para no borrar ni omitir tokens reales durante una medición.
+ */
+@Service
+@ConditionalOnProperty(name = "fcm.sender", havingValue = "simulado")
+public class FcmSenderSimulado implements FcmSender {
+
+    private final long latenciaMs;
+    private final double tasaFallos;
+
+    public FcmSenderSimulado(@Value("${fcm.simulado.latencia-ms:200}") long latenciaMs,
+                             @Value("${fcm.simulado.tasa-fallos:0.0}") double tasaFallos) {
+        this.latenciaMs = latenciaMs;
+        this.tasaFallos = tasaFallos;
+    }
+
+    @Override
+    public boolean disponible() {
+        return true;
+    }
+
+    @Override
+    public ResultadoLote enviarMulticast(List<String> tokens, MulticastMessage mensaje) {
+        if (!esperarLatencia()) {
+            return new ResultadoLote(0, tokens.size(), List.of(), List.of(), List.of());
+        }
+
+        // Los fallos simulados se reportan como transitorios para no alterar la salud de tokens reales
+        List<String> exitosos = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            if (ThreadLocalRandom.current().nextDouble() >= tasaFallos) {
+                exitosos.add(token);
+            }
+        }
+        return new ResultadoLote(exitosos.size(), tokens.size() - exitosos.size(), List.of(), List.of(), exitosos);
+    }
+
+    @Override
+    public String enviarMensaje(Message mensaje) {
+        esperarLatencia();
+        return "simulado-" + System.nanoTime();
+    }
+
+    @Override
+    public List<String> suscribirATopico(List<String> tokens, String topico) {
+        esperarLatencia();
+        return List.of();
+    }
+
+    @Override
+    public List<String> desuscribirDeTopico(List<String> tokens, String topico) {
+        esperarLatencia();
+        return List.of();
+    }
+
+    private boolean esperarLatencia() {
+        try {
+            Thread.sleep(latenciaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.SendResponse;
+import com.google.firebase.messaging.TopicManagementResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sender real: un lote se envía con sendEachForMulticast
+ */
+@Service
+@ConditionalOnProperty(name = "fcm.sender", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseFcmSender implements FcmSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseFcmSender.class);
+    // Desde este tamaño, un lote que falla completo con el mismo error se atribuye al mensaje o a las credenciales
+    private static final int LOTE_MINIMO_FALLA_COMUN = 10;
+
+    @Override
+    public boolean disponible() {
+        return !FirebaseApp.getApps().isEmpty();
+    }
+
+    @Override
+    public ResultadoLote enviarMulticast(List<String> tokens, MulticastMessage mensaje) throws FirebaseMessagingException {
+        BatchResponse respuesta = FirebaseMessaging.getInstance().sendEachForMulticast(mensaje);
+
+        // Las respuestas vienen en el mismo orden que los tokens del mensaje
+        List<String> tokensInvalidos = new ArrayList<>();
+        List<String> tokensConFallo = new ArrayList<>();
+        List<String> tokensExitosos = new ArrayList<>(tokens.size());
+        List<SendResponse> respuestas = respuesta.getResponses();
+
+        // El payload es el mismo para todo el lote: si todos fallan igual (payload inválido, credenciales APNs
+        // vencidas, proyecto equivocado) el error no es de los dispositivos y no se cuenta ni se eliminan tokens
+        MessagingErrorCode errorComun = errorComun(respuestas);
+        if (errorComun != null) {
+            logger.error("Lote FCM de {} tokens falló completo con {}; no se atribuye a los tokens",
+                respuestas.size(), errorComun);
+            return new ResultadoLote(respuesta.getSuccessCount(), respuesta.getFailureCount(),
+                List.of(), List.of(), List.of());
+        }
+
+        for (int i = 0; i < respuestas.size(); i++) {
+            SendResponse envio = respuestas.get(i);
+            if (envio.isSuccessful()) {
+                tokensExitosos.add(tokens.get(i));
+            } else if (esTokenInvalido(envio.getException())) {
+                tokensInvalidos.add(tokens.get(i));
+            } else if (esFalloDelToken(envio.getException())) {
+                tokensConFallo.add(tokens.get(i));
+            }
+        }
+
+        return new ResultadoLote(respuesta.getSuccessCount(), respuesta.getFailureCount(),
+            tokensInvalidos, tokensConFallo, tokensExitosos);
+    }
+
+    @Override
+    public String enviarMensaje(Message mensaje) throws FirebaseMessagingException {
+        return FirebaseMessaging.getInstance().send(mensaje);
+    }
+
+    @Override
+    public List<String> suscribirATopico(List<String> tokens, String topico) throws FirebaseMessagingException {
+        return tokensFallidos(tokens, FirebaseMessaging.getInstance().subscribeToTopic(tokens, topico));
+    }
+
+    @Override
+    public List<String> desuscribirDeTopico(List<String> tokens, String topico) throws FirebaseMessagingException {
+        return tokensFallidos(tokens, FirebaseMessaging.getInstance().unsubscribeFromTopic(tokens, topico));
+    }
+
+    private List<String> tokensFallidos(List<String> tokens, TopicManagementResponse respuesta) {
+        List<String> fallidos = new ArrayList<>();
+        for (TopicManagementResponse.Error error : respuesta.getErrors()) {
+            fallidos.add(tokens.get(error.getIndex()));
+        }
+        return fallidos;
+    }
+
+    /**
+     * Código de error compartido por todas las respuestas de un lote de tamaño suficiente, o null
+     */
+    private MessagingErrorCode errorComun(List<SendResponse> respuestas) {
+        if (respuestas.size() < LOTE_MINIMO_FALLA_COMUN) {
+            return null;
+        }
+        MessagingErrorCode comun = null;
+        for (SendResponse envio : respuestas) {
+            if (envio.isSuccessful() || envio.getException() == null || envio.getException().getMessagingErrorCode() == null) {
+                return null;
+            }
+            MessagingErrorCode codigo = envio.getException().getMessagingErrorCode();
+            if (comun != null && comun != codigo) {
+                return null;
+            }
+            comun = codigo;
+        }
+        return comun;
+    }
+
+    /**
+     * Errores que cuentan para la salud del token. Solo INVALID_ARGUMENT en un lote que no falló completo
+     * (token mal formado); los del servicio, de cuota (UNAVAILABLE, INTERNAL, QUOTA_EXCEEDED) y de
+     * credenciales (THIRD_PARTY_AUTH_ERROR) no dicen nada del dispositivo.
+     */
+    private boolean esFalloDelToken(FirebaseMessagingException e) {
+        return e != null && e.getMessagingErrorCode() == MessagingErrorCode.INVALID_ARGUMENT;
+    }
+
+    /**
+     * Solo los errores que FCM atribuye al token; INVALID_ARGUMENT también puede deberse al payload
+     * y eliminaría tokens válidos.
+     */
+    private boolean esTokenInvalido(FirebaseMessagingException e) {
+        if (e == null || e.getMessagingErrorCode() == null) {
+            return false;
+        }
+        return e.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED
+            || e.getMessagingErrorCode() == MessagingErrorCode.SENDER_ID_MISMATCH;
+    }
+}
@@ -0,0 +1,331 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.ImportacionCsv;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoImportacion;
+import ipn.mx.isc.sismosapp.backend.repository.ImportacionCsvRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Importaciones del catálogo histórico con seguimiento y reanudación.
+ * El cliente crea la importación, envía el archivo por fragmentos (cada uno en el offset donde terminó
+ * el anterior, así que una subida cortada se continúa) y la inicia. El archivo se importa por tramos
+ * de REGISTROS_POR_TRAMO registros y tras cada tramo se guarda el byte y la línea donde empieza el siguiente.
+ * Si la instancia cae, el lease vence y la importación se retoma desde ese punto; el tramo que estaba
+ * en curso se repite sin duplicar porque la carga (lotes o COPY) omite las filas que ya existen.
+ * Los fragmentos y la importación pueden atenderse en instancias distintas, así que csv.import.directorio
+ * debe ser el mismo directorio compartido en todas; un directorio local solo sirve con una instancia.
+ */
+@Service
+public class ImportacionCsvService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionCsvService.class);
+    // Se renueva al terminar cada tramo; cubre de sobra la importación de uno
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    // Reserva de un fragmento mientras se recibe (hasta 100 MB por petición)
+    private static final Duration LEASE_FRAGMENTO = Duration.ofMinutes(15);
+    private static final Duration RECEPCION_ABANDONADA = Duration.ofDays(1);
+    private static final Duration RETENCION_FALLIDAS = Duration.ofDays(7);
+    private static final int REGISTROS_POR_TRAMO = 50_000;
+
+    private final ImportacionCsvRepository importacionCsvRepository;
+    private final CsvUploadService csvUploadService;
+    private final Path directorio;
+    private final ExecutorService importaciones = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ImportacionCsvService(ImportacionCsvRepository importacionCsvRepository,
+                                 CsvUploadService csvUploadService,
+                                 @Value("${csv.import.directorio}") String directorio) {
+        this.importacionCsvRepository = importacionCsvRepository;
+        this.csvUploadService = csvUploadService;
+        this.directorio = Path.of(directorio);
+    }
+
+    /**
+     * Comprueba que el directorio exista (o pueda crearse) y admita escritura. No detiene el arranque:
+     * sin directorio solo fallan las importaciones por fragmentos
+     */
+    @PostConstruct
+    public void validarDirectorio() {
+        try {
+            Files.createDirectories(directorio);
+            Path prueba = Files.createTempFile(directorio, ".escritura", ".tmp");
+            Files.delete(prueba);
+        } catch (IOException e) {
+            logger.error("csv.import.directorio no es un directorio con permiso de escritura: {}. " +
+                "Las importaciones por fragmentos fallarán: {}", directorio.toAbsolutePath(), e.getMessage());
+            return;
+        }
+        logger.warn("Directorio de importaciones: {}. Con varias instancias debe ser el mismo directorio compartido " +
+            "en todas; uno local solo sirve con una instancia", directorio.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        // Sin interrumpir: una importación cortada queda en PROCESANDO y se retoma al vencer su lease
+        importaciones.shutdown();
+    }
+
+    public ImportacionCsv crear(String nombreArchivo, Long tamanoTotal) {
+        if (nombreArchivo == null || !nombreArchivo.endsWith(".csv")) {
+            throw new IllegalArgumentException("Solo se permiten archivos CSV");
+        }
+        if (tamanoTotal != null && tamanoTotal <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser mayor a 0");
+        }
+
+        ImportacionCsv importacion = new ImportacionCsv();
+        importacion.setNombreArchivo(nombreArchivo);
+        importacion.setTamanoTotal(tamanoTotal);
+        return importacionCsvRepository.save(importacion);
+    }
+
+    public Optional<ImportacionCsv> obtener(String id) {
+        return importacionCsvRepository.findById(id);
+    }
+
+    /**
+     * Escribe un fragmento del archivo en {@code offset}, que debe ser igual a los bytes ya recibidos.
+     * Lo que haya en disco después del fragmento (de un intento cortado) se descarta.
+     * El fragmento se reserva con un UPDATE condicional y se recibe sin transacción ni conexión abierta;
+     * al terminar se confirma solo si la reserva sigue siendo suya, así dos fragmentos de la misma
+     * importación no se mezclan.
+     *
+     * @throws IllegalStateException si la importación ya no recibe fragmentos, el offset no es el esperado
+     * u otro fragmento está en curso
+     */
+    public Optional<ImportacionCsv> recibirFragmento(String id, long offset, InputStream datos) throws IOException {
+        String reclamo = UUID.randomUUID().toString();
+        OffsetDateTime ahora = OffsetDateTime.now();
+        if (importacionCsvRepository.reservarFragmento(id, reclamo, offset, ahora, ahora.plus(LEASE_FRAGMENTO)) == 0) {
+            Optional<ImportacionCsv> encontrada = importacionCsvRepository.findById(id);
+            if (encontrada.isEmpty()) {
+                return encontrada;
+            }
+            ImportacionCsv importacion = encontrada.get();
+            if (importacion.getEstado() != EstadoImportacion.RECIBIENDO) {
+                throw new IllegalStateException("La importación ya no recibe fragmentos (" + importacion.getEstado() + ")");
+            }
+            if (offset != importacion.getBytesRecibidos()) {
+                throw new IllegalStateException("Se esperaba el offset " + importacion.getBytesRecibidos());
+            }
+            throw new IllegalStateException("Ya se está recibiendo un fragmento de esta importación");
+        }
+
+        long recibidos;
+        try {
+            Long tamanoTotal = importacionCsvRepository.findById(id).map(ImportacionCsv::getTamanoTotal).orElse(null);
+            recibidos = escribirFragmento(archivo(id), offset, datos);
+            if (tamanoTotal != null && recibidos > tamanoTotal) {
+                throw new IllegalArgumentException("El archivo excede el tamaño anunciado (" + tamanoTotal + ")");
+            }
+        } catch (IOException | RuntimeException e) {
+            importacionCsvRepository.liberarFragmento(id, reclamo);
+            throw e;
+        }
+
+        if (importacionCsvRepository.confirmarFragmento(id, reclamo, offset, recibidos, OffsetDateTime.now()) == 0) {
+            throw new IllegalStateException("La reserva del fragmento venció; reenvíalo desde bytesRecibidos");
+        }
+        return importacionCsvRepository.findById(id);
+    }
+
+    private long escribirFragmento(Path archivo, long offset, InputStream datos) throws IOException {
+        // Con un directorio que no es compartido, el fragmento anterior pudo quedar en otra instancia
+        long enDisco = Files.exists(archivo) ? Files.size(archivo) : 0;
+        if (enDisco < offset) {
+            throw new IllegalStateException("El archivo en " + directorio + " tiene " + enDisco + " bytes y se esperaban "
+                + offset + ": csv.import.directorio debe ser compartido por todas las instancias");
+        }
+
+        long escritos = 0;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ReadableByteChannel origen = Channels.newChannel(datos)) {
+            long transferidos;
+            while ((transferidos = canal.transferFrom(origen, offset + escritos, 1 << 20)) > 0) {
+                escritos += transferidos;
+            }
+            canal.truncate(offset + escritos);
+            canal.force(false);
+        }
+        return offset + escritos;
+    }
+
+    /**
+     * Inicia una importación cuyo archivo está completo, o reintenta una fallida desde su último avance
+     *
+     * @throws IllegalStateException si el archivo está incompleto o la importación ya está en curso
+     */
+    @Transactional
+    public Optional<ImportacionCsv> iniciar(String id) {
+        Optional<ImportacionCsv> encontrada = importacionCsvRepository.bloquear(id);
+        if (encontrada.isEmpty()) {
+            return encontrada;
+        }
+
+        ImportacionCsv importacion = encontrada.get();
+        switch (importacion.getEstado()) {
+            case RECIBIENDO -> {
+                if (importacion.getBytesRecibidos() == 0) {
+                    throw new IllegalStateException("No se ha recibido el archivo");
+                }
+                if (importacion.getBloqueadoHasta() != null && importacion.getBloqueadoHasta().isAfter(OffsetDateTime.now())) {
+                    throw new IllegalStateException("Se está recibiendo un fragmento de esta importación");
+                }
+                if (importacion.getTamanoTotal() != null && importacion.getBytesRecibidos() != importacion.getTamanoTotal()) {
+                    throw new IllegalStateException("Archivo incompleto: " + importacion.getBytesRecibidos()
+                        + " de " + importacion.getTamanoTotal() + " bytes");
+                }
+            }
+            case FALLIDA -> {
+                if (!Files.exists(archivo(id))) {
+                    throw new IllegalStateException("El archivo de la importación ya no existe; crea una nueva importación");
+                }
+                logger.info("Reintentando importación {} desde la línea {}", id, importacion.getLineasProcesadas());
+            }
+            default -> throw new IllegalStateException("La importación ya está " + importacion.getEstado());
+        }
+
+        importacion.setEstado(EstadoImportacion.PENDIENTE);
+        importacion.setReclamo(null);
+        importacion.setBloqueadoHasta(null);
+        importacion.setMensaje(null);
+        importacion.setTerminadaEn(null);
+        // Se lanza al confirmar el cambio de estado; si se pierde, el scheduler la toma como pendiente
+        DespuesDelCommit.ejecutar(() -> importaciones.execute(() -> procesar(id)));
+        return Optional.of(importacion);
+    }
+
+    /**
+     * Retoma las importaciones pendientes y las de instancias caídas (lease vencido)
+     */
+    public void reanudarPendientes() {
+        List<String> reanudables = importacionCsvRepository.findReanudables(OffsetDateTime.now());
+        for (String id : reanudables) {
+            importaciones.execute(() -> procesar(id));
+        }
+    }
+
+    /**
+     * Marca como fallidas las recepciones sin fragmentos en RECEPCION_ABANDONADA y borra su archivo,
+     * y borra los archivos de las fallidas con más de RETENCION_FALLIDAS (ya no se pueden reintentar)
+     */
+    public void limpiarAbandonadas() {
+        OffsetDateTime ahora = OffsetDateTime.now();
+        OffsetDateTime limite = ahora.minus(RECEPCION_ABANDONADA);
+        String mensaje = "Abandonada: sin fragmentos en " + RECEPCION_ABANDONADA.toHours() + " h";
+
+        int abandonadas = 0;
+        for (String id : importacionCsvRepository.findRecepcionesAbandonadas(limite, ahora)) {
+            if (importacionCsvRepository.marcarAbandonada(id, mensaje, limite, ahora) == 1) {
+                eliminarArchivo(id);
+                abandonadas++;
+            }
+        }
+
+        int eliminados = 0;
+        for (String id : importacionCsvRepository.findFallidasAntesDe(ahora.minus(RETENCION_FALLIDAS))) {
+            if (eliminarArchivo(id)) {
+                eliminados++;
+            }
+        }
+        if (abandonadas > 0 || eliminados > 0) {
+            logger.info("Importaciones: {} recepciones abandonadas, {} archivos de fallidas eliminados", abandonadas, eliminados);
+        }
+    }
+
+    private void procesar(String id) {
+        String reclamo = UUID.randomUUID().toString();
+        OffsetDateTime ahora = OffsetDateTime.now();
+        if (importacionCsvRepository.reclamar(id, reclamo, ahora, ahora.plus(LEASE)) == 0) {
+            return;
+        }
+        ImportacionCsv importacion = importacionCsvRepository.findById(id).orElseThrow();
+        Path archivo = archivo(id);
+        if (!Files.exists(archivo)) {
+            // Recibida en otra instancia con un directorio local
+            importacionCsvRepository.marcarFallida(id, reclamo, "El archivo no está en " + directorio
+                + ": csv.import.directorio debe ser compartido por todas las instancias", OffsetDateTime.now());
+            logger.error("Importación {}: no se encontró {}", id, archivo);
+            return;
+        }
+        logger.info("Importando {} ({}) desde el byte {}, línea {}", importacion.getNombreArchivo(), id,
+            importacion.getBytesProcesados(), importacion.getLineasProcesadas());
+
+        long inicio = System.currentTimeMillis();
+        try (TramosCsv tramos = new TramosCsv(archivo, importacion.getBytesProcesados(), importacion.getLineasProcesadas())) {
+            while (tramos.hayMas()) {
+                CsvUploadService.ResultadoImportacion resultado =
+                    csvUploadService.importarTramo(tramos.siguiente(REGISTROS_POR_TRAMO), tramos.lineas());
+
+                int actualizadas = importacionCsvRepository.registrarAvance(id, reclamo, tramos.offset(), tramos.lineas(),
+                    resultado.leidas(), resultado.insertadas(), resultado.omitidas(),
+                    OffsetDateTime.now().plus(LEASE));
+                if (actualizadas == 0) {
+                    // El lease venció y otra instancia la retomó desde el último avance guardado
+                    logger.warn("Importación {}: la tomó otra instancia, se detiene", id);
+                    return;
+                }
+                logger.info("Importación {}: {} de {} bytes. Colas: {}", id, tramos.offset(),
+                    importacion.getBytesRecibidos(), resultado.colas());
+            }
+        } catch (Exception e) {
+            logger.error("Error en la importación {}: {}", id, e.getMessage(), e);
+            if (importacionCsvRepository.marcarFallida(id, reclamo, recortar("Error: " + e.getMessage()), OffsetDateTime.now()) == 0) {
+                logger.warn("Importación {}: no se marcó como fallida, ya la tiene otra instancia", id);
+            }
+            return;
+        }
+
+        ImportacionCsv terminada = importacionCsvRepository.findById(id).orElseThrow();
+        String mensaje = String.format(
+            "CSV procesado en %d ms. Procesadas: %d, Guardadas: %d, Omitidas: %d, Duplicados: %d",
+            System.currentTimeMillis() - inicio, terminada.getFilasLeidas(), terminada.getFilasInsertadas(),
+            terminada.getFilasOmitidas(), terminada.getFilasLeidas() - terminada.getFilasInsertadas()
+        );
+        if (importacionCsvRepository.marcarCompletada(id, reclamo, mensaje, OffsetDateTime.now()) == 0) {
+            logger.warn("Importación {}: no se marcó como completada, ya la tiene otra instancia", id);
+            return;
+        }
+        logger.info("Importación {} completada. {}", id, mensaje);
+        eliminarArchivo(id);
+    }
+
+    private boolean eliminarArchivo(String id) {
+        try {
+            return Files.deleteIfExists(archivo(id));
+        } catch (IOException e) {
+            logger.warn("No se pudo eliminar el archivo de la importación {}: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    private Path archivo(String id) {
+        return directorio.resolve(id + ".csv");
+    }
+
+    private static String recortar(String mensaje) {
+        return mensaje.length() > 1000 ? mensaje.substring(0, 1000) : mensaje;
+    }
+}
@@ -1,66 +1,128 @@
 package ipn.mx.isc.sismosapp.backend.service;
 
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.messaging.FirebaseMessaging;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.messaging.AndroidConfig;
 import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MulticastMessage;
 import com.google.firebase.messaging.Notification;
 import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
 import ipn.mx.isc.sismosapp.backend.model.entities.DeviceToken;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
 import ipn.mx.isc.sismosapp.backend.repository.DeviceTokenRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class NotificationService {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+    private static final int LONGITUD_MAXIMA_CUERPO = 240;
 
     private final DeviceTokenRepository deviceTokenRepository;
+    private final FcmSender fcmSender;
+    private final TokenHealthService tokenHealthService;
+    private final ObjectMapper objectMapper;
 
-    public NotificationService(DeviceTokenRepository deviceTokenRepository) {
+    public NotificationService(DeviceTokenRepository deviceTokenRepository,
+                               FcmSender fcmSender,
+                               TokenHealthService tokenHealthService,
+                               ObjectMapper objectMapper) {
         this.deviceTokenRepository = deviceTokenRepository;
+        this.fcmSender = fcmSender;
+        this.tokenHealthService = tokenHealthService;
+        this.objectMapper = objectMapper;
     }
 
-    public void registrarToken(String token, String platform) {
+    /**
+     * Registra el token con sus preferencias de alerta.
+     * Los tópicos se reconcilian en segundo plano (TopicosFcmScheduler), que también quita los anteriores;
+     * aquí solo se marca el token como pendiente cuando es nuevo o sus preferencias cambiaron.
+     */
+    public void registrarToken(String token, String platform, String estado, Integer magnitudMinima) {
         if (token == null || token.isBlank()) {
             return;
         }
+        String estadoNormalizado = EstadoMexicano.fromAbreviatura(estado)
+            .map(EstadoMexicano::getAbreviatura)
+            .orElse(null);
+        Integer nivel = magnitudMinima == null ? null : TopicosFcm.normalizarNivel(magnitudMinima);
+
             deviceTokenRepository.findByToken(token).ifPresentOrElse(
-                    existing -> {
-                        // Ya existe: actualiza plataforma si cambió (idempotente)
-                        if (platform != null && !platform.isBlank() && !platform.equalsIgnoreCase(existing.getPlatform())) {
-                            existing.setPlatform(platform);
-                            deviceTokenRepository.save(existing);
-                        }
-                    },
+                    existing -> actualizarExistente(existing, platform, estadoNormalizado, nivel),
                     () -> {
                         // No existe: intenta guardar, pero maneja la condición de carrera de duplicado
                         try {
                             String resolvedPlatform = (platform == null || platform.isBlank()) ? "android" : platform;
-                            deviceTokenRepository.save(new DeviceToken(token, resolvedPlatform));
+                            DeviceToken nuevo = new DeviceToken(token, resolvedPlatform);
+                            nuevo.setEstado(estadoNormalizado);
+                            nuevo.setMagnitudMinima(nivel);
+                            deviceTokenRepository.save(nuevo);
                         } catch (org.springframework.dao.DataIntegrityViolationException e) {
                             // Otro hilo/petición pudo insertar el mismo token en paralelo.
-                            // Recupera y, si aplica, actualiza la plataforma.
-                            deviceTokenRepository.findByToken(token).ifPresent(existing -> {
-                                if (platform != null && !platform.isBlank() && !platform.equalsIgnoreCase(existing.getPlatform())) {
-                                    existing.setPlatform(platform);
-                                    deviceTokenRepository.save(existing);
-                                }
-                            });
+                            // Recupera y, si aplica, actualiza la plataforma y preferencias.
+                            deviceTokenRepository.findByToken(token).ifPresent(existing ->
+                                actualizarExistente(existing, platform, estadoNormalizado, nivel)
+                            );
                         }
                     }
             );
     }
 
-    public void notificarSismosCriticos(List<SismoDTO> sismos, double umbralMagnitud) {
-        if (FirebaseApp.getApps().isEmpty()) {
+    private void actualizarExistente(DeviceToken existing, String platform, String estado, Integer nivel) {
+        boolean cambio = false;
+
+        // Actualiza plataforma si cambió (idempotente)
+        if (platform != null && !platform.isBlank() && !platform.equalsIgnoreCase(existing.getPlatform())) {
+            existing.setPlatform(platform);
+            cambio = true;
+        }
+
+        // Preferencias: solo se modifican si el cliente las envía
+        boolean cambiaEstado = estado != null && !estado.equals(existing.getEstado());
+        boolean cambiaNivel = nivel != null && !Objects.equals(nivel, existing.getMagnitudMinima());
+        if (cambiaEstado || cambiaNivel) {
+            // Token anterior al registro de suscripciones: fijar sus tópicos actuales antes de cambiarlos
+            if (existing.getTopicosSuscritos() == null) {
+                existing.setTopicosSuscritos(TopicosFcm.unir(TopicosFcm.suscritosDe(existing)));
+            }
+            if (cambiaEstado) {
+                existing.setEstado(estado);
+            }
+            if (cambiaNivel) {
+                existing.setMagnitudMinima(nivel);
+            }
+            existing.setTopicosSincronizados(false);
+            cambio = true;
+        }
+
+        if (cambio) {
+            deviceTokenRepository.save(existing);
+        }
+    }
+
+    /**
+     * Envía los sismos críticos de un mismo tick como una sola alerta por dispositivo:
+     * se agrupan mientras la unión de sus tópicos quepa en una condición FCM (5 tópicos),
+     * normalmente un solo mensaje. El costo no depende de cuántos dispositivos haya, salvo por
+     * los tokens que aún no terminan de suscribirse, a los que la alerta se envía por token.
+     *
+     * @param porPagina Se invoca por cada página de tokens sin suscripción (renovación del lease del outbox)
+     * @throws IllegalStateException si FCM rechaza el envío
+     */
+    public void notificarSismosCriticos(List<SismoDTO> sismos, double umbralMagnitud, Runnable porPagina) {
+        if (!fcmSender.disponible()) {
             logger.warn("Firebase no inicializado. Se omiten notificaciones.");
             return;
         }
@@ -69,56 +131,136 @@ public class NotificationService {
             return;
         }
 
+        // Los de mayor magnitud primero: encabezan la alerta y definen los niveles del grupo
         List<SismoDTO> criticos = sismos.stream()
             .filter(s -> s.getMagnitud() != null && s.getMagnitud() >= umbralMagnitud)
+            .sorted(Comparator.comparing(SismoDTO::getMagnitud).reversed())
             .toList();
 
-        if (criticos.isEmpty()) {
-            return;
+        for (GrupoAlerta grupo : agruparPorTopicos(criticos)) {
+            enviarAlerta(grupo, porPagina);
         }
+    }
 
-        List<String> tokens = deviceTokenRepository.findAll().stream()
-            .map(DeviceToken::getToken)
-            .collect(Collectors.toList());
-
-        if (tokens.isEmpty()) {
-            logger.info("No hay tokens registrados; Se omiten notificaciones");
-            return;
-        }
+    private record GrupoAlerta(List<SismoDTO> sismos, Set<String> topicos) {
+    }
 
+    private List<GrupoAlerta> agruparPorTopicos(List<SismoDTO> criticos) {
+        List<GrupoAlerta> grupos = new ArrayList<>();
         for (SismoDTO sismo : criticos) {
-            enviarNotificacion(tokens, sismo);
+            Set<String> topicosSismo = TopicosFcm.topicosAlerta(sismo);
+            if (topicosSismo.isEmpty()) {
+                logger.info("El sismo {} no corresponde a ningún tópico; se omite la alerta", sismo.getId());
+                continue;
+            }
+
+            GrupoAlerta destino = null;
+            for (GrupoAlerta grupo : grupos) {
+                Set<String> union = new LinkedHashSet<>(grupo.topicos());
+                union.addAll(topicosSismo);
+                if (union.size() <= TopicosFcm.MAX_TOPICOS_CONDICION) {
+                    destino = grupo;
+                    break;
+                }
+            }
+
+            if (destino == null) {
+                destino = new GrupoAlerta(new ArrayList<>(), new LinkedHashSet<>());
+                grupos.add(destino);
+            }
+            destino.sismos().add(sismo);
+            destino.topicos().addAll(topicosSismo);
         }
+        return grupos;
     }
 
-    private void enviarNotificacion(List<String> tokens, SismoDTO sismo) {
-        Map<String, String> data = new HashMap<>();
-        data.put("id", sismo.getId());
-        data.put("magnitud", String.valueOf(sismo.getMagnitud()));
-        data.put("lugar", sismo.getLugar());
-        data.put("profundidadKm", String.valueOf(sismo.getProfundidadKm()));
-        data.put("fechaHora", sismo.getFechaHora().toString());
-
-        Notification notification = Notification.builder()
-            .setTitle("🚨 ALERTA! Sismo Detectado")
-            .setBody(sismo.getLugar() + " • Magnitud " + sismo.getMagnitud())
-            .build();
+    private void enviarAlerta(GrupoAlerta grupo, Runnable porPagina) {
+        String condicion = TopicosFcm.condicion(grupo.topicos());
+        List<SismoDTO> sismos = grupo.sismos();
+        SismoDTO principal = sismos.get(0);
 
-        for (String token : tokens) {
-            Message message = Message.builder()
-                .setToken(token)
-                .setNotification(notification)
-                .putAllData(data)
+        Notification notification;
+        if (sismos.size() == 1) {
+            notification = Notification.builder()
+                .setTitle("🚨 ALERTA! Sismo Detectado")
+                .setBody(principal.getLugar() + " • Magnitud " + principal.getMagnitud())
+                .build();
+        } else {
+            String resumen = sismos.stream()
+                .map(s -> "M" + s.getMagnitud() + " " + s.getLugar())
+                .collect(Collectors.joining(" • "));
+            notification = Notification.builder()
+                .setTitle("🚨 ALERTA! " + sismos.size() + " sismos detectados")
+                .setBody(resumen.length() > LONGITUD_MAXIMA_CUERPO
+                    ? resumen.substring(0, LONGITUD_MAXIMA_CUERPO - 1) + "…"
+                    : resumen)
                 .build();
+        }
+
+        // Prioridad alta para que Android entregue la alerta aunque el dispositivo esté en reposo
+        AndroidConfig android = AndroidConfig.builder()
+            .setPriority(AndroidConfig.Priority.HIGH)
+            .build();
+        Map<String, String> datos = PayloadSismos.empaquetarPrimeros(sismos, objectMapper);
 
-            try {
-                String response = FirebaseMessaging.getInstance().send(message);
-                logger.info("Notificación enviada exitosamente: {}", response);
-            } catch (FirebaseMessagingException e) {
-                logger.error("Error enviando notificación FCM al token {}: {}", 
-                    token.substring(0, Math.min(20, token.length())) + "...", 
-                    e.getMessage());
+        // Antes que la condición: un token que se suscriba entre ambos envíos recibe la alerta de más, no de menos
+        enviarATokensSinSuscripcion(grupo.topicos(), porPagina, lote -> MulticastMessage.builder()
+            .setNotification(notification)
+            .setAndroidConfig(android)
+            .putAllData(datos)
+            .addAllTokens(lote)
+            .build());
+
+        Message message = Message.builder()
+            .setCondition(condicion)
+            .setNotification(notification)
+            .setAndroidConfig(android)
+            .putAllData(datos)
+            .build();
+
+        try {
+            String response = fcmSender.enviarMensaje(message);
+            logger.info("Alerta de {} sismo(s) enviada a la condición [{}]: {}", sismos.size(), condicion, response);
+        } catch (FirebaseMessagingException e) {
+            // Se propaga para que el outbox reintente la alerta
+            throw new IllegalStateException("Error enviando alerta FCM del sismo " + principal.getId() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Envía la alerta por token a los dispositivos pendientes de sincronizar que no recibirían el mensaje
+     * a la condición de tópicos (tokens nuevos, migrados o con una suscripción fallida)
+     */
+    private void enviarATokensSinSuscripcion(Set<String> topicos, Runnable porPagina,
+                                             Function<List<String>, MulticastMessage> mensaje) {
+        long ultimoId = 0;
+        int enviados = 0;
+        while (true) {
+            List<DeviceToken> pendientes =
+                deviceTokenRepository.findTop1000ByTopicosSincronizadosFalseAndIdGreaterThanOrderByIdAsc(ultimoId);
+            if (pendientes.isEmpty()) {
+                break;
+            }
+            ultimoId = pendientes.get(pendientes.size() - 1).getId();
+            porPagina.run();
+
+            List<String> destino = pendientes.stream()
+                .filter(deviceToken -> TopicosFcm.requiereEnvioDirecto(deviceToken, topicos))
+                .map(DeviceToken::getToken)
+                .toList();
+            for (int i = 0; i < destino.size(); i += FcmDispatcher.TAMANO_LOTE) {
+                List<String> lote = destino.subList(i, Math.min(i + FcmDispatcher.TAMANO_LOTE, destino.size()));
+                try {
+                    FcmSender.ResultadoLote resultado = fcmSender.enviarMulticast(lote, mensaje.apply(lote));
+                    tokenHealthService.registrarResultado(resultado);
+                    enviados += resultado.exitosos();
+                } catch (FirebaseMessagingException e) {
+                    logger.error("Error enviando la alerta a {} tokens sin suscripción: {}", lote.size(), e.getMessage());
+                }
             }
         }
+        if (enviados > 0) {
+            logger.info("Alerta enviada por token a {} dispositivos pendientes de suscripción", enviados);
+        }
     }
 }
@@ -0,0 +1,84 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payload compacto de sismos para mensajes data FCM.
+ * Cada sismo es un arreglo posicional [id, fechaHora, latitud, longitud, magnitud, profundidadKm, lugar, fuente]
+ * en lugar de un objeto con nombres de campo, y los sismos se reparten en tantos mensajes como haga falta
+ * para que ninguno supere el límite de 4 KB de FCM.
+ */
+public final class PayloadSismos {
+
+    public static final String CLAVE_VERSION = "v";
+    public static final String CLAVE_SISMOS = "s";
+    public static final String VERSION = "1";
+
+    // Margen bajo los 4096 bytes de FCM para las claves, la notificación y el sobre del mensaje
+    public static final int LIMITE_BYTES = 3500;
+
+    private PayloadSismos() {
+    }
+
+    /**
+     * Reparte los sismos en los mensajes data necesarios, cada uno bajo el límite
+     */
+    public static List<Map<String, String>> empaquetar(List<SismoDTO> sismos, ObjectMapper objectMapper) {
+        List<Map<String, String>> mensajes = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        int bytesActual = 2; // corchetes del arreglo
+
+        for (SismoDTO sismo : sismos) {
+            String codificado = codificar(sismo, objectMapper);
+            int bytes = codificado.getBytes(StandardCharsets.UTF_8).length + 1; // coma separadora
+
+            if (!actual.isEmpty() && bytesActual + bytes > LIMITE_BYTES) {
+                mensajes.add(crearMensaje(actual));
+                actual = new ArrayList<>();
+                bytesActual = 2;
+            }
+            actual.add(codificado);
+            bytesActual += bytes;
+        }
+
+        if (!actual.isEmpty()) {
+            mensajes.add(crearMensaje(actual));
+        }
+        return mensajes;
+    }
+
+    /**
+     * Un solo mensaje con los primeros sismos que quepan en el límite (para alertas, que llevan notificación)
+     */
+    public static Map<String, String> empaquetarPrimeros(List<SismoDTO> sismos, ObjectMapper objectMapper) {
+        List<Map<String, String>> mensajes = empaquetar(sismos, objectMapper);
+        return mensajes.isEmpty() ? crearMensaje(List.of()) : mensajes.get(0);
+    }
+
+    private static String codificar(SismoDTO sismo, ObjectMapper objectMapper) {
+        ArrayNode campos = objectMapper.createArrayNode();
+        campos.add(sismo.getId());
+        campos.add(objectMapper.valueToTree(sismo.getFechaHora()));
+        campos.add(sismo.getLatitud());
+        campos.add(sismo.getLongitud());
+        campos.add(sismo.getMagnitud());
+        campos.add(sismo.getProfundidadKm());
+        campos.add(sismo.getLugar());
+        campos.add(sismo.getFuente());
+        return campos.toString();
+    }
+
+    private static Map<String, String> crearMensaje(List<String> sismosCodificados) {
+        return Map.of(
+            CLAVE_VERSION, VERSION,
+            CLAVE_SISMOS, "[" + String.join(",", sismosCodificados) + "]"
+        );
+    }
+}
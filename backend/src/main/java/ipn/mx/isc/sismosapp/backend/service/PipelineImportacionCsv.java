@@ -0,0 +1,379 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import ipn.mx.isc.sismosapp.backend.model.entities.SismoH;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Pipeline de una importación de CSV: un lector, N convertidores y el escritor, unidos por colas acotadas.
+ * El lector solo separa el CSV en filas (debe ser secuencial por los campos entre comillas) y las agrupa
+ * en bloques; los convertidores hacen el trabajo de CPU (números, fechas, estado) en paralelo; el escritor
+ * corre en el hilo que llama a {@link #ejecutar} y recibe las filas convertidas como un iterador.
+ * Si el escritor es más lento, las colas se llenan y el lector deja de leer (backpressure), así que
+ * la memoria queda acotada por la capacidad de las colas.
+ * El orden de las filas no se conserva.
+ * Un error de lectura hace fallar la importación aunque opencsv lo haya tomado como fin del archivo.
+ */
+final class PipelineImportacionCsv {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineImportacionCsv.class);
+
+    private static final int FILAS_POR_BLOQUE = 1000;
+    private static final long ESPERA_MS = 100;
+
+    private record Bloque<T>(long primeraLinea, List<T> filas) {
+    }
+
+    // Marcadores de fin; se comparan por referencia
+    private static final Bloque<String[]> FIN_CRUDAS = new Bloque<>(-1, List.of());
+    private static final Bloque<SismoH> FIN_CONVERTIDAS = new Bloque<>(-1, List.of());
+
+    private final LectorVigilado entrada;
+    private final CSVReader csvReader;
+    private final long lineaInicial;
+    private final int lineasCabecera;
+    private final int convertidores;
+    private final Function<String[], SismoH> conversion;
+
+    private final Cola<String[]> crudas;
+    private final Cola<SismoH> convertidas;
+    private final AtomicLong omitidas = new AtomicLong();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private final List<Thread> etapas = new ArrayList<>();
+
+    /**
+     * @param lineaInicial Línea del archivo donde empieza la entrada, para los mensajes de error
+     * @param conversion   Convierte una fila; null o una excepción la cuentan como omitida
+     */
+    PipelineImportacionCsv(Reader reader, long lineaInicial, int lineasCabecera, int convertidores,
+                           Function<String[], SismoH> conversion) {
+        if (convertidores <= 0) {
+            throw new IllegalArgumentException("Se requiere al menos un convertidor");
+        }
+        this.entrada = new LectorVigilado(reader);
+        this.csvReader = new CSVReader(entrada);
+        this.lineaInicial = lineaInicial;
+        this.lineasCabecera = lineasCabecera;
+        this.convertidores = convertidores;
+        this.conversion = conversion;
+        this.crudas = new Cola<>(convertidores * 2);
+        this.convertidas = new Cola<>(convertidores * 2);
+    }
+
+    /**
+     * Arranca el lector y los convertidores en hilos virtuales y corre el escritor en el hilo actual.
+     * Si una etapa falla se detienen las demás y se propaga su error.
+     */
+    <R> R ejecutar(Function<Iterator<SismoH>, R> escritor) throws IOException {
+        etapas.add(Thread.ofVirtual().name("csv-lector").unstarted(() -> etapa(this::leer)));
+        for (int i = 0; i < convertidores; i++) {
+            etapas.add(Thread.ofVirtual().name("csv-convertidor-" + i).unstarted(() -> etapa(this::convertir)));
+        }
+        etapas.forEach(Thread::start);
+
+        try {
+            R resultado = escritor.apply(new FilasConvertidas());
+            for (Thread etapa : etapas) {
+                etapa.join();
+            }
+            // El resultado solo vale si todas las etapas terminaron sin error
+            if (error.get() != null) {
+                throw propagar(error.get());
+            }
+            return resultado;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Importación interrumpida");
+        } catch (RuntimeException e) {
+            // Si el escritor se detuvo porque otra etapa falló, se propaga el error original
+            Throwable causa = error.get();
+            if (causa == null) {
+                throw e;
+            }
+            throw propagar(causa);
+        } finally {
+            etapas.forEach(Thread::interrupt);
+        }
+    }
+
+    private static RuntimeException propagar(Throwable causa) throws IOException {
+        if (causa instanceof IOException io) {
+            throw io;
+        }
+        if (causa instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (causa instanceof Error grave) {
+            throw grave;
+        }
+        throw new IllegalStateException("Error en la importación: " + causa.getMessage(), causa);
+    }
+
+    long omitidas() {
+        return omitidas.get();
+    }
+
+    /**
+     * Profundidad de las colas durante la importación: si "crudas" está llena el cuello de botella es
+     * la conversión; si "convertidas" está llena, la escritura; si ambas están vacías, la lectura
+     */
+    String profundidades() {
+        return "crudas " + crudas.profundidad + ", convertidas " + convertidas.profundidad;
+    }
+
+    private interface Etapa {
+        void correr() throws Exception;
+    }
+
+    private void etapa(Etapa cuerpo) {
+        try {
+            cuerpo.correr();
+        } catch (InterruptedException | CancellationException e) {
+            // Otra etapa falló o la importación terminó
+        } catch (Throwable e) {
+            if (error.compareAndSet(null, e)) {
+                logger.error("Error en {}: {}", Thread.currentThread().getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void leer() throws IOException, InterruptedException {
+        long linea = 0;
+        long primeraLinea = lineaInicial + lineasCabecera;
+        List<String[]> bloque = new ArrayList<>(FILAS_POR_BLOQUE);
+
+        while (true) {
+            String[] row;
+            try {
+                row = csvReader.readNext();
+            } catch (CsvValidationException e) {
+                logger.warn("Error en línea {}: {}", lineaInicial + linea, e.getMessage());
+                // Fila vacía: el convertidor la cuenta como omitida y se mantiene la numeración del bloque
+                row = new String[0];
+            }
+            if (row == null) {
+                // opencsv devuelve null también cuando la lectura falló
+                if (entrada.error != null) {
+                    throw entrada.error;
+                }
+                break;
+            }
+
+            // Saltar las líneas de cabecera del SSN (solo al inicio del archivo)
+            if (linea++ < lineasCabecera) {
+                continue;
+            }
+
+            bloque.add(row);
+            if (bloque.size() == FILAS_POR_BLOQUE) {
+                poner(crudas, new Bloque<>(primeraLinea, bloque));
+                primeraLinea += bloque.size();
+                bloque = new ArrayList<>(FILAS_POR_BLOQUE);
+            }
+        }
+
+        if (!bloque.isEmpty()) {
+            poner(crudas, new Bloque<>(primeraLinea, bloque));
+        }
+        for (int i = 0; i < convertidores; i++) {
+            poner(crudas, FIN_CRUDAS);
+        }
+    }
+
+    private void convertir() throws InterruptedException {
+        while (true) {
+            Bloque<String[]> bloque = tomar(crudas);
+            if (bloque == FIN_CRUDAS) {
+                poner(convertidas, FIN_CONVERTIDAS);
+                return;
+            }
+
+            List<SismoH> sismos = new ArrayList<>(bloque.filas().size());
+            long linea = bloque.primeraLinea();
+            for (String[] row : bloque.filas()) {
+                try {
+                    SismoH sismo = conversion.apply(row);
+                    if (sismo != null) {
+                        sismos.add(sismo);
+                    } else {
+                        omitidas.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    logger.warn("Error en línea {}: {}", linea, e.getMessage());
+                    omitidas.incrementAndGet();
+                }
+                linea++;
+            }
+            poner(convertidas, new Bloque<>(bloque.primeraLinea(), sismos));
+        }
+    }
+
+    // Espera con timeout para notar que otra etapa falló en lugar de quedarse bloqueado en una cola
+    private <T> void poner(Cola<T> cola, Bloque<T> bloque) throws InterruptedException {
+        while (!cola.offer(bloque)) {
+            verificarError();
+        }
+    }
+
+    private <T> Bloque<T> tomar(Cola<T> cola) throws InterruptedException {
+        Bloque<T> bloque;
+        while ((bloque = cola.poll()) == null) {
+            verificarError();
+        }
+        return bloque;
+    }
+
+    private void verificarError() {
+        if (error.get() != null) {
+            throw new CancellationException("Otra etapa de la importación falló");
+        }
+    }
+
+    /**
+     * Filas convertidas para el escritor; termina cuando todos los convertidores entregaron su marcador de fin
+     */
+    private class FilasConvertidas implements Iterator<SismoH> {
+
+        private Iterator<SismoH> actual = List.<SismoH>of().iterator();
+        private int finalizados;
+
+        @Override
+        public boolean hasNext() {
+            while (!actual.hasNext()) {
+                if (finalizados == convertidores) {
+                    return false;
+                }
+                Bloque<SismoH> bloque;
+                try {
+                    bloque = tomar(convertidas);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Importación interrumpida");
+                }
+                if (bloque == FIN_CONVERTIDAS) {
+                    finalizados++;
+                } else {
+                    actual = bloque.filas().iterator();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public SismoH next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return actual.next();
+        }
+    }
+
+    /**
+     * Guarda el primer error de lectura: CSVReader lo descarta al comprobar si el lector sigue abierto
+     * y termina como si el archivo hubiera acabado
+     */
+    private static final class LectorVigilado extends FilterReader {
+
+        private IOException error;
+
+        LectorVigilado(Reader reader) {
+            super(reader);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw registrar(e);
+            }
+        }
+
+        @Override
+        public int read(char[] destino, int inicio, int longitud) throws IOException {
+            try {
+                return super.read(destino, inicio, longitud);
+            } catch (IOException e) {
+                throw registrar(e);
+            }
+        }
+
+        private IOException registrar(IOException e) {
+            if (error == null) {
+                error = e;
+            }
+            return e;
+        }
+    }
+
+    /**
+     * Cola acotada que registra su profundidad en cada inserción
+     */
+    private static final class Cola<T> {
+
+        private final BlockingQueue<Bloque<T>> cola;
+        private final Profundidad profundidad;
+
+        Cola(int capacidad) {
+            this.cola = new ArrayBlockingQueue<>(capacidad);
+            this.profundidad = new Profundidad(capacidad);
+        }
+
+        boolean offer(Bloque<T> bloque) throws InterruptedException {
+            if (!cola.offer(bloque, ESPERA_MS, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            profundidad.registrar(cola.size());
+            return true;
+        }
+
+        Bloque<T> poll() throws InterruptedException {
+            return cola.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Máximo y promedio de una profundidad muestreada (elementos en una cola o escrituras en vuelo)
+     */
+    static final class Profundidad {
+
+        private final int capacidad;
+        private final AtomicLong muestras = new AtomicLong();
+        private final AtomicLong suma = new AtomicLong();
+        private final AtomicLong maxima = new AtomicLong();
+
+        Profundidad(int capacidad) {
+            this.capacidad = capacidad;
+        }
+
+        void registrar(int valor) {
+            muestras.incrementAndGet();
+            suma.addAndGet(valor);
+            maxima.accumulateAndGet(valor, Math::max);
+        }
+
+        @Override
+        public String toString() {
+            long n = muestras.get();
+            double promedio = n > 0 ? (double) suma.get() / n : 0;
+            return String.format("máx %d/%d, prom %.1f", maxima.get(), capacidad, promedio);
+        }
+    }
+}
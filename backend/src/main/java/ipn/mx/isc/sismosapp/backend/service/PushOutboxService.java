@@ -0,0 +1,174 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+import ipn.mx.isc.sismosapp.backend.model.entities.PushOutbox;
+import ipn.mx.isc.sismosapp.backend.model.enums.TipoPush;
+import ipn.mx.isc.sismosapp.backend.repository.PushOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox de envíos push.
+ * Los sismos nuevos se encolan en la transacción que los inserta; los workers de
+ * PushOutboxScheduler los entregan después, con reintentos, sin retener la transacción
+ * ni el hilo del scraper mientras FCM responde.
+ */
+@Service
+public class PushOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PushOutboxService.class);
+    // Lease de un envío reclamado; se renueva por página de tokens, a lo más una vez por RENOVACION
+    public static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration RENOVACION = Duration.ofMinutes(1);
+    private static final int MAX_INTENTOS = 8;
+    private static final Duration BACKOFF_INICIAL = Duration.ofSeconds(5);
+    private static final Duration BACKOFF_MAXIMO = Duration.ofMinutes(10);
+    private static final int LONGITUD_ERROR = 1000;
+
+    private final PushOutboxRepository pushOutboxRepository;
+    private final FcmDataMessagingService fcmDataMessagingService;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+
+    public PushOutboxService(PushOutboxRepository pushOutboxRepository,
+                             FcmDataMessagingService fcmDataMessagingService,
+                             NotificationService notificationService,
+                             ObjectMapper objectMapper) {
+        this.pushOutboxRepository = pushOutboxRepository;
+        this.fcmDataMessagingService = fcmDataMessagingService;
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Encola el mensaje data de los sismos nuevos y una sola alerta con los que alcancen el umbral.
+     * Debe llamarse dentro de la transacción que inserta los sismos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void encolar(List<SismoDTO> sismos, double umbralMagnitud) {
+        if (sismos == null || sismos.isEmpty()) {
+            return;
+        }
+
+        List<PushOutbox> envios = new ArrayList<>();
+        envios.add(crearEnvio(TipoPush.DATOS, sismos, null));
+
+        // Los críticos del tick van juntos: NotificationService los combina en una alerta por dispositivo
+        List<SismoDTO> criticos = sismos.stream()
+            .filter(sismo -> sismo.getMagnitud() != null && sismo.getMagnitud() >= umbralMagnitud)
+            .toList();
+        if (!criticos.isEmpty()) {
+            envios.add(crearEnvio(TipoPush.ALERTA, criticos, umbralMagnitud));
+        }
+
+        pushOutboxRepository.saveAll(envios);
+    }
+
+    /**
+     * Entrega un envío reclamado y registra el resultado: enviado, reprogramado con backoff
+     * exponencial o fallido al agotar los intentos. Si el lease se pierde a mitad del recorrido
+     * (otro worker lo retomó), el envío se interrumpe y el resultado no se registra.
+     */
+    public void procesar(PushOutbox envio) {
+        Runnable renovarLease = renovadorDe(envio);
+        try {
+            List<SismoDTO> sismos = objectMapper.readValue(envio.getPayload(), new TypeReference<List<SismoDTO>>() {});
+
+            switch (envio.getTipo()) {
+                case DATOS -> fcmDataMessagingService.enviarSismosADispositivos(sismos, renovarLease);
+                case ALERTA -> notificationService.notificarSismosCriticos(sismos, envio.getUmbral(), renovarLease);
+            }
+
+            registrar(envio, pushOutboxRepository.marcarEnviado(envio.getId(), envio.getReclamo(), OffsetDateTime.now()));
+        } catch (Exception e) {
+            String error = recortar(e.getMessage());
+            if (envio.getIntentos() >= MAX_INTENTOS) {
+                logger.error("Envío push {} ({}) descartado tras {} intentos: {}",
+                    envio.getId(), envio.getTipo(), envio.getIntentos(), error);
+                registrar(envio, pushOutboxRepository.marcarFallido(envio.getId(), envio.getReclamo(), error));
+                return;
+            }
+
+            Duration espera = calcularBackoff(envio.getIntentos());
+            logger.warn("Envío push {} ({}) falló en el intento {}; reintento en {} s: {}",
+                envio.getId(), envio.getTipo(), envio.getIntentos(), espera.toSeconds(), error);
+            registrar(envio, pushOutboxRepository.reprogramar(
+                envio.getId(), envio.getReclamo(), OffsetDateTime.now().plus(espera), error
+            ));
+        }
+    }
+
+    /**
+     * Elimina los envíos entregados hace más de una semana
+     */
+    public int limpiarEnviados() {
+        return pushOutboxRepository.eliminarEnviadosAntesDe(OffsetDateTime.now().minusDays(7));
+    }
+
+    /**
+     * Renovación del lease que se invoca por cada página de tokens; solo escribe en BD si pasó RENOVACION
+     * desde la anterior.
+     *
+     * @throws IllegalStateException si el envío ya no pertenece a este worker, para dejar de enviar
+     */
+    private Runnable renovadorDe(PushOutbox envio) {
+        AtomicLong ultimaRenovacion = new AtomicLong(System.nanoTime());
+        return () -> {
+            long ahora = System.nanoTime();
+            long anterior = ultimaRenovacion.get();
+            if (ahora - anterior < RENOVACION.toNanos() || !ultimaRenovacion.compareAndSet(anterior, ahora)) {
+                return;
+            }
+            int renovados = pushOutboxRepository.renovarLease(
+                envio.getId(), envio.getReclamo(), OffsetDateTime.now().plus(LEASE)
+            );
+            if (renovados == 0) {
+                throw new IllegalStateException("El envío push " + envio.getId() + " fue reclamado por otro worker");
+            }
+        };
+    }
+
+    private void registrar(PushOutbox envio, int actualizados) {
+        if (actualizados == 0) {
+            logger.warn("Envío push {} ({}): el lease venció y otro worker lo retomó; se descarta este resultado",
+                envio.getId(), envio.getTipo());
+        }
+    }
+
+    private PushOutbox crearEnvio(TipoPush tipo, List<SismoDTO> sismos, Double umbral) {
+        PushOutbox envio = new PushOutbox();
+        envio.setTipo(tipo);
+        envio.setUmbral(umbral);
+        try {
+            envio.setPayload(objectMapper.writeValueAsString(sismos));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la lista de sismos", e);
+        }
+        return envio;
+    }
+
+    private Duration calcularBackoff(int intentos) {
+        // 5 s, 10 s, 20 s, ... hasta 10 min
+        long segundos = BACKOFF_INICIAL.toSeconds() << Math.min(Math.max(intentos - 1, 0), 16);
+        return segundos > BACKOFF_MAXIMO.toSeconds() ? BACKOFF_MAXIMO : Duration.ofSeconds(segundos);
+    }
+
+    private String recortar(String mensaje) {
+        if (mensaje == null) {
+            return "Error desconocido";
+        }
+        return mensaje.length() <= LONGITUD_ERROR ? mensaje : mensaje.substring(0, LONGITUD_ERROR);
+    }
+}
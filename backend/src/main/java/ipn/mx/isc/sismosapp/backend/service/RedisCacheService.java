@@ -1,23 +1,51 @@
 package ipn.mx.isc.sismosapp.backend.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Cache de los sismos más recientes en Redis.
+ * Los ids se guardan en un sorted set con score = fechaHora (epoch ms) y el JSON de cada sismo
+ * en un hash, de modo que agregar o eliminar sismos cuesta O(cambios) y no reescribe toda la lista.
+ */
 @Service
 public class RedisCacheService {
 
     private static final Logger logger = LoggerFactory.getLogger(RedisCacheService.class);
-    private static final String RECENT_SISMOS_KEY = "sismos:recent";
+    private static final String LEGACY_RECENT_SISMOS_KEY = "sismos:recent";
+    private static final String RECENT_IDS_KEY = "sismos:recent:ids";
+    private static final String RECENT_DATA_KEY = "sismos:recent:data";
+    // Contador de cambios (altas y bajas) del cache; una reconstrucción solo se escribe si no cambió
+    private static final String RECENT_VERSION_KEY = "sismos:recent:version";
+    private static final String VERSION_INICIAL = "0";
     private static final long CACHE_TTL_HOURS = 24;
+    private static final int MAX_SISMOS_RECIENTES = 100;
+    // Canal pub/sub que avisa a todas las instancias que el cache de recientes cambió
+    public static final String CANAL_INVALIDACION_RECIENTES = "sismos:recent:invalidate";
 
     private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
@@ -27,25 +55,143 @@ public class RedisCacheService {
         this.objectMapper = objectMapper;
     }
 
-    public void guardarSismosRecientes(List<SismoDTO> sismos) {
+    /**
+     * Versión actual del cache de recientes. Se lee antes de consultar la BD para reconstruirlo
+     * con {@link #guardarSismosRecientes(List, String)}; devuelve null si Redis no responde.
+     */
+    public String obtenerVersionRecientes() {
         try {
-            String json = objectMapper.writeValueAsString(sismos);
-            redisTemplate.opsForValue().set(RECENT_SISMOS_KEY, json, CACHE_TTL_HOURS, TimeUnit.HOURS);
+            String version = redisTemplate.opsForValue().get(RECENT_VERSION_KEY);
+            return version != null ? version : VERSION_INICIAL;
+        } catch (Exception e) {
+            logger.error("Error leyendo la versión del cache en Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reemplaza por completo el contenido del cache (usado al arrancar o al reconstruir desde BD).
+     * Si hubo altas o bajas desde que se leyó la versión, la lista ya no está al día y no se escribe;
+     * la siguiente lectura sin cache vuelve a reconstruirlo.
+     *
+     * @param version Versión leída con {@link #obtenerVersionRecientes()} antes de consultar la BD
+     * @return true si el cache se reemplazó
+     */
+    public boolean guardarSismosRecientes(List<SismoDTO> sismos, String version) {
+        if (version == null) {
+            return false;
+        }
+        try {
+            Map<String, String> datos = serializar(sismos);
+            Set<ZSetOperations.TypedTuple<String>> ids = puntuar(sismos);
+
+            boolean guardado = ejecutarSiVersion(version, operations -> {
+                operations.delete(List.of(LEGACY_RECENT_SISMOS_KEY, RECENT_IDS_KEY, RECENT_DATA_KEY));
+                if (!ids.isEmpty()) {
+                    operations.opsForHash().putAll(RECENT_DATA_KEY, datos);
+                    operations.opsForZSet().add(RECENT_IDS_KEY, ids);
+                    operations.expire(RECENT_DATA_KEY, CACHE_TTL_HOURS, TimeUnit.HOURS);
+                    operations.expire(RECENT_IDS_KEY, CACHE_TTL_HOURS, TimeUnit.HOURS);
+                }
+            });
+            if (!guardado) {
+                logger.info("El cache de recientes cambió durante la reconstrucción; se omite");
+                return false;
+            }
+            recortarSismosRecientes();
+            publicarInvalidacion();
             logger.info("Sismos guardados en Redis cache");
+            return true;
         } catch (JsonProcessingException e) {
             logger.error("Error al serializar sismos a JSON: {}", e.getMessage());
         } catch (Exception e) {
             logger.error("Error al almacenar sismos en Redis: {}", e.getMessage());
         }
+        return false;
+    }
+
+    /**
+     * Agrega sismos nuevos al cache (ZADD + HSET) y recorta al máximo de recientes.
+     * Solo aplica si el cache ya existe; un cache parcial devolvería una lista incompleta.
+     * Debe llamarse después del commit que insertó los sismos.
+     */
+    public void agregarSismosRecientes(List<SismoDTO> sismos) {
+        if (sismos == null || sismos.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Sin cache base (expirado o no inicializado) se omite: la siguiente lectura lo reconstruye desde BD
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(RECENT_IDS_KEY))) {
+                // La versión cambia igual, para descartar una reconstrucción que leyó la BD antes de estas altas
+                redisTemplate.opsForValue().increment(RECENT_VERSION_KEY);
+                logger.debug("Cache de recientes vacío; se omite la inserción incremental");
+                return;
+            }
+
+            Map<String, String> datos = serializar(sismos);
+            Set<ZSetOperations.TypedTuple<String>> ids = puntuar(sismos);
+
+            ejecutarEnTransaccion(operations -> {
+                operations.opsForHash().putAll(RECENT_DATA_KEY, datos);
+                operations.opsForZSet().add(RECENT_IDS_KEY, ids);
+                operations.expire(RECENT_DATA_KEY, CACHE_TTL_HOURS, TimeUnit.HOURS);
+                operations.expire(RECENT_IDS_KEY, CACHE_TTL_HOURS, TimeUnit.HOURS);
+                operations.opsForValue().increment(RECENT_VERSION_KEY);
+            });
+            recortarSismosRecientes();
+            publicarInvalidacion();
+            logger.info("{} sismos agregados al cache de Redis", sismos.size());
+        } catch (JsonProcessingException e) {
+            logger.error("Error al serializar sismos a JSON: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al agregar sismos en Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina un sismo del cache (ZREM + HDEL). Debe llamarse después del commit de la baja.
+     */
+    public void eliminarSismo(String id) {
+        try {
+            ejecutarEnTransaccion(operations -> {
+                operations.opsForZSet().remove(RECENT_IDS_KEY, id);
+                operations.opsForHash().delete(RECENT_DATA_KEY, id);
+                operations.opsForValue().increment(RECENT_VERSION_KEY);
+            });
+            publicarInvalidacion();
+        } catch (Exception e) {
+            logger.error("Error al eliminar sismo {} de Redis: {}", id, e.getMessage());
+        }
     }
 
     public List<SismoDTO> obtenerSismosRecientes() {
+        return obtenerSismosRecientes(MAX_SISMOS_RECIENTES);
+    }
+
+    /**
+     * Obtiene los sismos más recientes ordenados por fecha descendente.
+     * Devuelve null si el cache está vacío o inconsistente para que el llamador consulte la BD.
+     */
+    public List<SismoDTO> obtenerSismosRecientes(int limite) {
         try {
-            String json = redisTemplate.opsForValue().get(RECENT_SISMOS_KEY);
-            if (json != null && !json.isEmpty()) {
-                logger.info("Sismos obtenidos desde Redis cache");
-                return objectMapper.readValue(json, new TypeReference<List<SismoDTO>>() {});
+            Set<String> ids = redisTemplate.opsForZSet().reverseRange(RECENT_IDS_KEY, 0, limite - 1L);
+            if (ids == null || ids.isEmpty()) {
+                return null;
             }
+
+            List<String> jsons = redisTemplate.<String, String>opsForHash().multiGet(RECENT_DATA_KEY, ids);
+            List<SismoDTO> sismos = new ArrayList<>(jsons.size());
+            for (String json : jsons) {
+                if (json == null) {
+                    logger.warn("Cache de sismos recientes inconsistente; se consultará la BD");
+                    return null;
+                }
+                sismos.add(objectMapper.readValue(json, SismoDTO.class));
+            }
+
+            logger.info("Sismos obtenidos desde Redis cache");
+            return sismos;
         } catch (JsonProcessingException e) {
             logger.error("Error al deserializar sismos desde JSON: {}", e.getMessage());
         } catch (Exception e) {
@@ -53,4 +199,118 @@ public class RedisCacheService {
         }
         return null;
     }
+
+    public long contarSismosRecientes() {
+        try {
+            Long total = redisTemplate.opsForZSet().zCard(RECENT_IDS_KEY);
+            return total != null ? total : 0;
+        } catch (Exception e) {
+            logger.error("Error contando sismos en Redis: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Fecha del sismo más antiguo del cache, para completarlo desde BD tras una eliminación
+     */
+    public Optional<OffsetDateTime> obtenerFechaMasAntigua() {
+        try {
+            Set<ZSetOperations.TypedTuple<String>> primero = redisTemplate.opsForZSet().rangeWithScores(RECENT_IDS_KEY, 0, 0);
+            if (primero == null || primero.isEmpty()) {
+                return Optional.empty();
+            }
+            Double score = primero.iterator().next().getScore();
+            return Optional.ofNullable(score)
+                .map(s -> OffsetDateTime.ofInstant(Instant.ofEpochMilli(s.longValue()), ZoneOffset.UTC));
+        } catch (Exception e) {
+            logger.error("Error leyendo el sismo más antiguo de Redis: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Elimina del sorted set y del hash los sismos que exceden el máximo de recientes
+     */
+    private void recortarSismosRecientes() {
+        Set<String> excedentes = redisTemplate.opsForZSet().range(RECENT_IDS_KEY, 0, -(MAX_SISMOS_RECIENTES + 1L));
+        if (excedentes == null || excedentes.isEmpty()) {
+            return;
+        }
+
+        Object[] ids = excedentes.toArray();
+        ejecutarEnTransaccion(operations -> {
+            operations.opsForZSet().remove(RECENT_IDS_KEY, ids);
+            operations.opsForHash().delete(RECENT_DATA_KEY, ids);
+        });
+    }
+
+    private void publicarInvalidacion() {
+        redisTemplate.convertAndSend(CANAL_INVALIDACION_RECIENTES, String.valueOf(System.currentTimeMillis()));
+    }
+
+    private Map<String, String> serializar(Collection<SismoDTO> sismos) throws JsonProcessingException {
+        Map<String, String> datos = new HashMap<>();
+        for (SismoDTO sismo : sismos) {
+            datos.put(sismo.getId(), objectMapper.writeValueAsString(sismo));
+        }
+        return datos;
+    }
+
+    private Set<ZSetOperations.TypedTuple<String>> puntuar(Collection<SismoDTO> sismos) {
+        Set<ZSetOperations.TypedTuple<String>> tuplas = new HashSet<>();
+        for (SismoDTO sismo : sismos) {
+            double score = sismo.getFechaHora().toInstant().toEpochMilli();
+            tuplas.add(new DefaultTypedTuple<>(sismo.getId(), score));
+        }
+        return tuplas;
+    }
+
+    /**
+     * Ejecuta las operaciones en un bloque MULTI/EXEC para que los lectores no vean el
+     * sorted set y el hash desincronizados
+     */
+    private void ejecutarEnTransaccion(OperacionesRedis operaciones) {
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                stringOperations.multi();
+                operaciones.aplicar(stringOperations);
+                return stringOperations.exec();
+            }
+        });
+    }
+
+    /**
+     * Como {@link #ejecutarEnTransaccion(OperacionesRedis)}, pero con WATCH sobre la versión:
+     * el bloque se descarta si la versión ya no es la esperada o si cambia antes del EXEC
+     *
+     * @return true si el bloque se aplicó
+     */
+    private boolean ejecutarSiVersion(String version, OperacionesRedis operaciones) {
+        List<Object> resultado = redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                stringOperations.watch(RECENT_VERSION_KEY);
+                String actual = stringOperations.opsForValue().get(RECENT_VERSION_KEY);
+                if (!Objects.equals(version, actual != null ? actual : VERSION_INICIAL)) {
+                    stringOperations.unwatch();
+                    return null;
+                }
+                stringOperations.multi();
+                operaciones.aplicar(stringOperations);
+                return stringOperations.exec();
+            }
+        });
+        // EXEC abortado por el WATCH devuelve una lista vacía
+        return resultado != null && !resultado.isEmpty();
+    }
+
+    @FunctionalInterface
+    private interface OperacionesRedis {
+        void aplicar(RedisOperations<String, String> operations);
+    }
 }
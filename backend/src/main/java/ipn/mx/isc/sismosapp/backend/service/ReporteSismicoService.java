@@ -2,6 +2,7 @@ package ipn.mx.isc.sismosapp.backend.service;
 
 import ipn.mx.isc.sismosapp.backend.model.dto.ReporteSismicoDTO;
 import ipn.mx.isc.sismosapp.backend.model.entities.SismoH;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
 import ipn.mx.isc.sismosapp.backend.repository.SismoHRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,10 +75,8 @@ public class ReporteSismicoService {
         OffsetDateTime odtInicio = fechaInicio.atOffset(ZoneOffset.of("-06:00"));
         OffsetDateTime odtFin = fechaFin.atOffset(ZoneOffset.of("-06:00"));
         
-        // Obtener todos los sismos del periodo
-        List<SismoH> sismos = sismoHRepository.findAll().stream()
-            .filter(s -> !s.getFechaHora().isBefore(odtInicio) && !s.getFechaHora().isAfter(odtFin))
-            .collect(Collectors.toList());
+        // Obtener los sismos del periodo (rango sobre el índice de fechaHora)
+        List<SismoH> sismos = sismoHRepository.findByFechaHoraBetween(odtInicio, odtFin);
         
         if (sismos.isEmpty()) {
             logger.warn("No se encontraron sismos en el periodo especificado");
@@ -113,7 +112,7 @@ public class ReporteSismicoService {
         reporte.setDistribucionPorMagnitud(calcularDistribucionPorMagnitud(sismos));
 
         // Distribución por estado
-        reporte.setDistribucionPorEstado(calcularDistribucionPorEstado(sismos));
+        reporte.setDistribucionPorEstado(calcularDistribucionPorEstado(odtInicio, odtFin));
 
         // Distribución por mes
         reporte.setDistribucionPorMes(calcularDistribucionPorMes(sismos));
@@ -157,13 +156,11 @@ public class ReporteSismicoService {
         return distribucion;
     }
 
-    private Map<String, Long> calcularDistribucionPorEstado(List<SismoH> sismos) {
-        return sismos.stream()
-            .map(this::extraerEstado)
-            .filter(Objects::nonNull)
+    private Map<String, Long> calcularDistribucionPorEstado(OffsetDateTime inicio, OffsetDateTime fin) {
+        return sismoHRepository.contarPorEstado(inicio, fin).stream()
             .collect(Collectors.groupingBy(
-                estado -> estado,
-                Collectors.counting()
+                fila -> fila[0] != null ? ((EstadoMexicano) fila[0]).getAbreviatura() : "DESCONOCIDO",
+                Collectors.summingLong(fila -> (Long) fila[1])
             ))
             .entrySet().stream()
             .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
@@ -176,21 +173,6 @@ public class ReporteSismicoService {
             ));
     }
 
-    private String extraerEstado(SismoH sismo) {
-        String ubicacion = sismo.getReferenciaLocalizacion();
-        if (ubicacion == null || ubicacion.isEmpty()) {
-            return "DESCONOCIDO";
-        }
-        
-        // Extrae el estado que aparece al final después de la última coma
-        int ultimaComa = ubicacion.lastIndexOf(',');
-        if (ultimaComa != -1 && ultimaComa < ubicacion.length() - 1) {
-            return ubicacion.substring(ultimaComa + 1).trim();
-        }
-        
-        return "DESCONOCIDO";
-    }
-
     private Map<String, Long> calcularDistribucionPorMes(List<SismoH> sismos) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
         
@@ -1,21 +1,23 @@
 package ipn.mx.isc.sismosapp.backend.service;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 @Service
@@ -27,47 +29,113 @@ public class ScraperService {
     private String ssnUrl;
     private static final int TIMEOUT = 30000;
 
-    public List<Sismo> scrapeSismos() {
+    // Validadores de la última versión de la página procesada correctamente
+    private volatile String ultimoEtag;
+    private volatile String ultimoLastModified;
+    private volatile String ultimoHash;
+
+    /**
+     * Descarga la página del SSN con una petición condicional (If-None-Match / If-Modified-Since).
+     * Si el servidor responde 304 o el hash del contenido coincide con la última versión procesada,
+     * el resultado se marca sin cambios y no se construye el DOM.
+     */
+    public ResultadoScraping scrapeSismos() {
         List<Sismo> sismos = new ArrayList<>();
 
         try {
             logger.info("Iniciando scraping");
-            Document document = Jsoup.connect(ssnUrl)
+            Connection connection = Jsoup.connect(ssnUrl)
                 .timeout(TIMEOUT)
                 .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                .get();
-
-            Elements rows = document.select("tr.1days, tr.2days");
-            for (Element row : rows) {
-                try {
-                    Sismo sismo = parseSismoFromRow(row);
-                    if (sismo != null) {
-                        sismos.add(sismo);
-                    }
-                } catch (Exception e) {
-                    logger.error("Error al parsear fila de sismo: {}", e.getMessage());
+                .ignoreHttpErrors(true)
+                .ignoreContentType(true);
+
+            if (ultimoEtag != null) {
+                connection.header("If-None-Match", ultimoEtag);
+            }
+            if (ultimoLastModified != null) {
+                connection.header("If-Modified-Since", ultimoLastModified);
+            }
+
+            Connection.Response response = connection.execute();
+
+            if (response.statusCode() == 304) {
+                logger.info("Página del SSN sin cambios (304 Not Modified)");
+                return ResultadoScraping.paginaSinCambios();
+            }
+
+            if (response.statusCode() != 200) {
+                logger.error("El SSN respondió con estado HTTP {}", response.statusCode());
+                return ResultadoScraping.conSismos(sismos, null, null, null);
+            }
+
+            // El hash se calcula sobre los bytes crudos, antes de decodificar el cuerpo
+            String hash = calcularHash(response.bodyAsBytes());
+            if (hash != null && hash.equals(ultimoHash)) {
+                logger.info("Página del SSN sin cambios (mismo hash de contenido)");
+                return ResultadoScraping.paginaSinCambios();
+            }
+
+            // Extracción en una sola pasada; el DOM completo solo se usa si alguna fila no se reconoce
+            List<SsnRowExtractor.FilaSsn> filas = new ArrayList<>();
+            SsnRowExtractor.extraer(response.body(), filas::add);
+
+            long incompletas = filas.stream().filter(fila -> !fila.completa()).count();
+            if (filas.isEmpty() || incompletas > 0) {
+                List<SsnRowExtractor.FilaSsn> filasDom = new ArrayList<>();
+                SsnRowExtractor.extraerConDom(response.parse(), filasDom::add);
+                logger.warn("Extracción en una pasada no reconocida ({} filas, {} incompletas); "
+                    + "se usa el parser DOM ({} filas)", filas.size(), incompletas, filasDom.size());
+                filas = filasDom;
+            }
+
+            for (SsnRowExtractor.FilaSsn fila : filas) {
+                Sismo sismo = crearSismo(fila.magnitud(), fila.fecha(), fila.hora(), fila.lugar(),
+                    fila.latitud(), fila.longitud(), fila.profundidad());
+                if (sismo != null) {
+                    sismos.add(sismo);
                 }
             }
 
-            logger.info("Scraping completado. Sismos encontrados {}. Sismos extraidos: {}", rows.size(), sismos.size());
+            logger.info("Scraping completado. Sismos encontrados {}. Sismos extraidos: {}", filas.size(), sismos.size());
+
+            return ResultadoScraping.conSismos(
+                sismos, response.header("ETag"), response.header("Last-Modified"), hash
+            );
 
         } catch (Exception e) {
             logger.error("Error durante scraping: {}", e.getMessage(), e);
         }
 
-        return sismos;
+        return ResultadoScraping.conSismos(sismos, null, null, null);
     }
 
-    private Sismo parseSismoFromRow(Element row) {
+    /**
+     * Registra la versión de la página como procesada. Se llama después de persistir
+     * los sismos para que un fallo intermedio no haga que se omita la página en el siguiente tick.
+     */
+    public void confirmarVersion(ResultadoScraping resultado) {
+        if (resultado == null || resultado.sinCambios()) {
+            return;
+        }
+        ultimoEtag = resultado.etag();
+        ultimoLastModified = resultado.lastModified();
+        ultimoHash = resultado.hash();
+    }
+
+    private String calcularHash(byte[] contenido) {
         try {
-            String magnitudText = row.select("td.latest-mag").text().trim();
-            String fechaText = row.select("span[id^=date_]").text().trim();
-            String horaText = row.select("span[id^=time_]").text().trim();
-            String lugarText = row.select("span[id^=epi_]").text().trim();
-            String latitudText = row.select("span[id^=lat_]").text().trim();
-            String longitudText = row.select("span[id^=lon_]").text().trim();
-            String profundidadText = row.select("td[id^=prof_]").text().trim();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(contenido));
+        } catch (NoSuchAlgorithmException e) {
+            logger.warn("SHA-256 no disponible; se procesará la página completa");
+            return null;
+        }
+    }
 
+    private Sismo crearSismo(String magnitudText, String fechaText, String horaText, String lugarText,
+                             String latitudText, String longitudText, String profundidadText) {
+        try {
             if (magnitudText.isEmpty() || fechaText.isEmpty() || horaText.isEmpty()) {
                 return null;
             }
@@ -88,6 +156,7 @@ public class ScraperService {
             sismo.setLongitud(longitud);
             sismo.setProfundidadKm(profundidad);
             sismo.setLugar(lugarText);
+            sismo.setEstado(EstadoMexicano.fromLugar(lugarText).orElse(null));
             sismo.setFuente("SSN");
 
             return sismo;
@@ -107,4 +176,18 @@ public class ScraperService {
             return 0.0;
         }
     }
+
+    /**
+     * Resultado de un scraping. Si sinCambios es true la página no cambió desde la última versión confirmada.
+     */
+    public record ResultadoScraping(boolean sinCambios, List<Sismo> sismos, String etag, String lastModified, String hash) {
+
+        static ResultadoScraping paginaSinCambios() {
+            return new ResultadoScraping(true, List.of(), null, null, null);
+        }
+
+        static ResultadoScraping conSismos(List<Sismo> sismos, String etag, String lastModified, String hash) {
+            return new ResultadoScraping(false, sismos, etag, lastModified, hash);
+        }
+    }
 }
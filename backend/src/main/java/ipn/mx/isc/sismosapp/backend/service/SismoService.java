@@ -1,22 +1,33 @@
 package ipn.mx.isc.sismosapp.backend.service;
 
+import ipn.mx.isc.sismosapp.backend.model.dto.CursorPagina;
+import ipn.mx.isc.sismosapp.backend.model.dto.GrupoSismos;
 import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
 import ipn.mx.isc.sismosapp.backend.model.dto.SismoFilterDTO;
 import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
 import ipn.mx.isc.sismosapp.backend.model.mapper.SismoMapper;
 import ipn.mx.isc.sismosapp.backend.model.requests.SismoRequest;
+import ipn.mx.isc.sismosapp.backend.model.responses.RespuestaPrecalculada;
+import ipn.mx.isc.sismosapp.backend.model.responses.SincronizacionSismos;
+import ipn.mx.isc.sismosapp.backend.model.responses.VistaMapa;
 import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
+import ipn.mx.isc.sismosapp.backend.model.entities.SismoEliminado;
+import ipn.mx.isc.sismosapp.backend.repository.SismoEliminadoRepository;
 import ipn.mx.isc.sismosapp.backend.repository.SismoRepository;
+import ipn.mx.isc.sismosapp.backend.specification.PaginacionKeyset;
 import ipn.mx.isc.sismosapp.backend.specification.SismoSpecification;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -25,21 +36,35 @@ public class SismoService {
 
     private static final Logger logger = LoggerFactory.getLogger(SismoService.class);
     private static final int MAX_SISMOS_RECIENTES = 100;
+    private static final int LIMITE_CAMBIOS_DEFECTO = 500;
+    private static final int LIMITE_CAMBIOS_MAXIMO = 1000;
+    private static final double RADIO_MAXIMO_KM = 2000;
+    // Vista de mapa: desde este zoom se envían sismos individuales; antes, grupos de ~60 px
+    private static final int ZOOM_DETALLE = 10;
+    private static final int ZOOM_MAXIMO = 22;
+    private static final int PIXELES_CELDA = 60;
+    private static final int LIMITE_PUNTOS_MAPA = 500;
 
     @Autowired
     private SismoRepository sismoRepository;
 
+    @Autowired
+    private SismoEliminadoRepository sismoEliminadoRepository;
+
     @Autowired
     private RedisCacheService redisCacheService;
 
+    @Autowired
+    private CacheLocalService cacheLocalService;
+
     @Autowired
     private SismoMapper sismoMapper;
 
     @Autowired
-    private FcmDataMessagingService fcmDataMessagingService;
+    private PushOutboxService pushOutboxService;
 
     @Autowired
-    private NotificationService notificationService;
+    private SismoStreamService sismoStreamService;
 
     /**
      * Inicializa el cache Redis al arrancar la aplicación
@@ -48,11 +73,13 @@ public class SismoService {
     public void inicializarCache() {
         logger.info("Inicializando cache Redis con los sismos más recientes de BD...");
         
+        String version = redisCacheService.obtenerVersionRecientes();
         List<SismoDTO> sismosRecientes = obtenerSismosDesdeDB(0, MAX_SISMOS_RECIENTES);
     
         if (!sismosRecientes.isEmpty()) {
-            redisCacheService.guardarSismosRecientes(sismosRecientes);
-            logger.info("Cache Redis actualizado con {} sismos desde BD", sismosRecientes.size());
+            if (redisCacheService.guardarSismosRecientes(sismosRecientes, version)) {
+                logger.info("Cache Redis actualizado con {} sismos desde BD", sismosRecientes.size());
+            }
         } else {
             logger.info("No hay sismos en BD para inicializar cache");
         }
@@ -60,23 +87,146 @@ public class SismoService {
 
     /**
      * Obtiene sismos con paginación
-     * Usa cache Redis para la primera página cuando es posible
+     * Usa el cache local (y detrás Redis) para la primera página cuando es posible
      */
     public List<SismoDTO> obtenerTodosLosSismos(int page, int size) {
-        // Primero intenta Redis para los recientes
+        // Primero intenta el cache local / Redis para los recientes
         if (page == 0 && size <= MAX_SISMOS_RECIENTES) {
-            List<SismoDTO> cached = redisCacheService.obtenerSismosRecientes();
+            List<SismoDTO> cached = cacheLocalService.obtenerSismosRecientes();
             if (cached != null && !cached.isEmpty()) {
-                return cached.stream().limit(size).collect(Collectors.toList());
+                return cached.subList(0, Math.min(size, cached.size()));
             }
         }
 
         // Si no está en cache, consulta BD
+        if (page == 0 && size <= MAX_SISMOS_RECIENTES) {
+            // Reconstruye el cache (expirado o vacío) con la consulta que de todos modos se necesita.
+            // La versión se lee antes: si entra un alta o baja mientras tanto, la lista no se escribe
+            String version = redisCacheService.obtenerVersionRecientes();
+            List<SismoDTO> recientes = obtenerSismosDesdeDB(0, MAX_SISMOS_RECIENTES);
+            if (!recientes.isEmpty()) {
+                redisCacheService.guardarSismosRecientes(recientes, version);
+            }
+            return recientes.stream().limit(size).collect(Collectors.toList());
+        }
+
         List<SismoDTO> sismos = obtenerSismosDesdeDB(page, size);
         
         return sismos;
     }
 
+    /**
+     * Página de sismos posterior al cursor, en orden (fechaHora DESC, id DESC)
+     *
+     * @param cursor Cursor devuelto con la página anterior
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public Slice<SismoDTO> obtenerPaginaSismos(String cursor, int size) {
+        return buscarPagina(null, CursorPagina.decodificar(cursor), size);
+    }
+
+    /**
+     * Sismos dentro de la ventana visible del mapa. Con zoom bajo, o si hay más de los que el cliente
+     * puede dibujar, se agrupan en celdas proporcionales al zoom; así la respuesta no crece con el número de sismos.
+     *
+     * @param zoom Nivel de zoom del mapa (0 = mundo completo, escala de mosaicos de 256 px)
+     * @param magnitudMin Opcional
+     * @throws IllegalArgumentException si la ventana o el zoom no son válidos
+     */
+    public VistaMapa obtenerVistaMapa(double latitudMin, double latitudMax, double longitudMin, double longitudMax,
+                                      int zoom, Double magnitudMin) {
+        if (latitudMin > latitudMax || longitudMin > longitudMax) {
+            throw new IllegalArgumentException("La ventana del mapa es inválida: el mínimo es mayor que el máximo");
+        }
+        if (Math.abs(latitudMin) > 90 || Math.abs(latitudMax) > 90
+                || Math.abs(longitudMin) > 180 || Math.abs(longitudMax) > 180) {
+            throw new IllegalArgumentException("Coordenadas de la ventana fuera de rango");
+        }
+        if (zoom < 0 || zoom > ZOOM_MAXIMO) {
+            throw new IllegalArgumentException("El zoom debe estar entre 0 y " + ZOOM_MAXIMO);
+        }
+
+        double tamanoCelda = 360.0 / (256L << zoom) * PIXELES_CELDA;
+        if (zoom < ZOOM_DETALLE) {
+            List<GrupoSismos> grupos = sismoRepository.agruparEnCeldas(
+                latitudMin, latitudMax, longitudMin, longitudMax, magnitudMin, tamanoCelda
+            );
+            long total = grupos.stream().mapToLong(GrupoSismos::total).sum();
+            if (total > LIMITE_PUNTOS_MAPA) {
+                return new VistaMapa(true, List.of(), grupos);
+            }
+        }
+
+        // Una fila de más indica que la ventana tiene más sismos de los que se dibujan: se agrupan en lugar de recortar
+        List<Sismo> sismos = sismoRepository.buscarEnRectangulo(
+            latitudMin, latitudMax, longitudMin, longitudMax, magnitudMin, LIMITE_PUNTOS_MAPA + 1
+        );
+        if (sismos.size() > LIMITE_PUNTOS_MAPA) {
+            return new VistaMapa(true, List.of(), sismoRepository.agruparEnCeldas(
+                latitudMin, latitudMax, longitudMin, longitudMax, magnitudMin, tamanoCelda
+            ));
+        }
+        return new VistaMapa(false, sismoMapper.toDTOList(sismos), List.of());
+    }
+
+    /**
+     * Cuerpo precalculado de la primera página de sismos recientes (JSON, gzip y ETag).
+     * Devuelve null si el tamaño excede el cache o si el cache está vacío; en ese caso se usa
+     * {@link #obtenerTodosLosSismos(int, int)}, que además lo reconstruye.
+     */
+    public RespuestaPrecalculada obtenerRespuestaRecientes(int size) {
+        if (size <= 0 || size > MAX_SISMOS_RECIENTES) {
+            return null;
+        }
+        return cacheLocalService.obtenerRespuestaRecientes(size);
+    }
+
+    /**
+     * Cambios posteriores al cursor del cliente: sismos nuevos y ids eliminados, en orden de ingesta.
+     * Sin cursor (o con uno que este servidor no reconoce) devuelve los sismos recientes y el cursor actual.
+     *
+     * @param cursor Último cursor recibido por el cliente
+     * @param limite Máximo de cambios (altas + bajas) por respuesta
+     */
+    public SincronizacionSismos obtenerCambios(Long cursor, Integer limite) {
+        int maximo = (limite != null && limite > 0) ? Math.min(limite, LIMITE_CAMBIOS_MAXIMO) : LIMITE_CAMBIOS_DEFECTO;
+
+        // Se lee antes que los datos: lo que se confirme en medio llega en la siguiente petición
+        long ultimaSecuencia = sismoRepository.obtenerUltimaSecuencia();
+        if (cursor == null || cursor < 0 || cursor > ultimaSecuencia) {
+            return new SincronizacionSismos(
+                obtenerTodosLosSismos(0, MAX_SISMOS_RECIENTES), List.of(), ultimaSecuencia, false, cursor != null
+            );
+        }
+
+        // Una página más de cada tipo para saber si quedan cambios después de mezclarlas
+        List<Sismo> altas = sismoRepository.findBySecuenciaGreaterThanOrderBySecuenciaAsc(cursor, Limit.of(maximo + 1));
+        List<SismoEliminado> bajas =
+            sismoEliminadoRepository.findBySecuenciaGreaterThanOrderBySecuenciaAsc(cursor, Limit.of(maximo + 1));
+
+        List<Sismo> sismos = new ArrayList<>();
+        List<String> eliminados = new ArrayList<>();
+        long siguienteCursor = cursor;
+        int a = 0;
+        int b = 0;
+        while (sismos.size() + eliminados.size() < maximo && (a < altas.size() || b < bajas.size())) {
+            boolean tomarAlta = b >= bajas.size()
+                || (a < altas.size() && altas.get(a).getSecuencia() < bajas.get(b).getSecuencia());
+            if (tomarAlta) {
+                Sismo sismo = altas.get(a++);
+                sismos.add(sismo);
+                siguienteCursor = sismo.getSecuencia();
+            } else {
+                SismoEliminado eliminado = bajas.get(b++);
+                eliminados.add(eliminado.getId());
+                siguienteCursor = eliminado.getSecuencia();
+            }
+        }
+        boolean hayMas = a < altas.size() || b < bajas.size();
+
+        return new SincronizacionSismos(sismoMapper.toDTOList(sismos), eliminados, siguienteCursor, hayMas, false);
+    }
+
     /**
      * Obtiene sismos desde la base de datos con paginación
      * @param page Número de página
@@ -84,15 +234,29 @@ public class SismoService {
      * @return Lista de sismos ordenados por fecha descendente
      */
     private List<SismoDTO> obtenerSismosDesdeDB(int page, int size) {
-        var pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "fechaHora"));
+        var pageable = PageRequest.of(page, size, PaginacionKeyset.ORDEN);
         return sismoMapper.toDTOList(
-            sismoRepository.findAll(pageable).getContent()
+            sismoRepository.findAllBy(pageable).getContent()
         );
     }
 
     /**
-     * Crea un sismo manual (fuente distinta a SSN) y notifica via FCM data + notificaciones críticas.
+     * Consulta por keyset: lee una fila de más para saber si hay página siguiente, sin count(*)
+     */
+    private Slice<SismoDTO> buscarPagina(Specification<Sismo> filtros, CursorPagina cursor, int size) {
+        int limite = PaginacionKeyset.limitarTamano(size);
+        Specification<Sismo> spec = PaginacionKeyset.conCursor(filtros, cursor);
+        List<Sismo> filas = spec == null
+            ? sismoRepository.findAllBy(PageRequest.of(0, limite + 1, PaginacionKeyset.ORDEN)).getContent()
+            : sismoRepository.findBy(spec, consulta -> consulta.sortBy(PaginacionKeyset.ORDEN).limit(limite + 1).all());
+        return PaginacionKeyset.recortar(filas, limite).map(sismoMapper::toDTO);
+    }
+
+    /**
+     * Crea un sismo manual (fuente distinta a SSN) y encola, en la misma transacción,
+     * el envío FCM data + notificaciones críticas.
      */
+    @Transactional
     public SismoDTO crearSismoManual(SismoRequest request) {
         String fuente = (request.getFuente() == null || request.getFuente().isBlank() || "SSN".equalsIgnoreCase(request.getFuente()))
             ? "Personal"
@@ -105,31 +269,44 @@ public class SismoService {
         sismo.setMagnitud(request.getMagnitud());
         sismo.setProfundidadKm(request.getProfundidadKm());
         sismo.setLugar(request.getLugar());
+        sismo.setEstado(EstadoMexicano.fromLugar(request.getLugar()).orElse(null));
         sismo.setFuente(fuente);
 
-        Sismo guardado = sismoRepository.save(sismo);
-        SismoDTO dto = sismoMapper.toDTO(guardado);
+        List<Sismo> insertados = sismoRepository.insertarIgnorandoDuplicados(List.of(sismo));
+        if (insertados.isEmpty()) {
+            throw new IllegalArgumentException(
+                "Ya existe un sismo con la misma fecha, coordenadas y magnitud"
+            );
+        }
+        SismoDTO dto = sismoMapper.toDTO(insertados.get(0));
 
-        refrescarCacheRecientes();
-        fcmDataMessagingService.enviarSismosADispositivos(List.of(dto));
-        notificationService.notificarSismosCriticos(List.of(dto), 4.0);
+        // El cache y el stream SSE solo ven el sismo si la transacción se confirma
+        DespuesDelCommit.ejecutar(() -> {
+            redisCacheService.agregarSismosRecientes(List.of(dto));
+            sismoStreamService.publicar(List.of(dto));
+        });
+        pushOutboxService.encolar(List.of(dto), 4.0);
 
         return dto;
     }
 
     /**
-     * Elimina un sismo por id. Devuelve true si existía.
+     * Elimina un sismo por id y registra la baja para la sincronización incremental. Devuelve true si existía.
      */
+    @Transactional
     public boolean eliminarSismo(String id) {
         if (id == null || id.isBlank()) {
             return false;
         }
 
-        return sismoRepository.findById(id).map(existing -> {
-            sismoRepository.deleteById(id);
-            refrescarCacheRecientes();
-            return true;
-        }).orElse(false);
+        if (!sismoRepository.eliminarConRegistro(id)) {
+            return false;
+        }
+        DespuesDelCommit.ejecutar(() -> {
+            redisCacheService.eliminarSismo(id);
+            completarCacheRecientes();
+        });
+        return true;
     }
 
     /**
@@ -137,12 +314,13 @@ public class SismoService {
      * Si no se proporcionan filtros, devuelve los 100 más recientes
      * 
      * @param filters Criterios de filtrado (todos opcionales)
-     * @return Lista de sismos que cumplen los criterios
+     * @return Página de sismos que cumplen los criterios
      */
-    public List<SismoDTO> filtrarSismos(SismoFilterDTO filters) {
+    public Slice<SismoDTO> filtrarSismos(SismoFilterDTO filters) {
         // Validar parámetros de paginación
         int page = (filters.getPage() != null && filters.getPage() >= 0) ? filters.getPage() : 0;
-        int size = (filters.getSize() != null && filters.getSize() > 0) ? filters.getSize() : 100;
+        int size = (filters.getSize() != null && filters.getSize() > 0)
+            ? PaginacionKeyset.limitarTamano(filters.getSize()) : 100;
         
         // Validar rangos coherentes
         validarFiltros(filters);
@@ -150,13 +328,14 @@ public class SismoService {
         // Construir especificación dinámica
         Specification<Sismo> spec = SismoSpecification.withFilters(filters);
         
-        // Aplicar paginación y ordenamiento
-        var pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "fechaHora"));
-        
-        // Ejecutar consulta
-        var resultado = sismoRepository.findAll(spec, pageable);
+        CursorPagina cursor = CursorPagina.decodificar(filters.getCursor());
+        if (cursor != null || page == 0) {
+            return buscarPagina(spec, cursor, size);
+        }
         
-        return sismoMapper.toDTOList(resultado.getContent());
+        // Paginación por número de página (clientes anteriores al cursor), como Slice para no ejecutar count(*)
+        var pageable = PageRequest.of(page, size, PaginacionKeyset.ORDEN);
+        return sismoRepository.findBy(spec, consulta -> consulta.slice(pageable)).map(sismoMapper::toDTO);
     }
 
     /**
@@ -191,6 +370,31 @@ public class SismoService {
             }
         }
         
+        // Validar área de búsqueda
+        if (filters.getLatitudMin() != null && filters.getLatitudMax() != null
+                && filters.getLatitudMin() > filters.getLatitudMax()) {
+            throw new IllegalArgumentException("La latitud mínima no puede ser mayor que la máxima");
+        }
+        if (filters.getLongitudMin() != null && filters.getLongitudMax() != null
+                && filters.getLongitudMin() > filters.getLongitudMax()) {
+            throw new IllegalArgumentException("La longitud mínima no puede ser mayor que la máxima");
+        }
+        
+        // Validar búsqueda por radio
+        if (filters.getRadioKm() != null || filters.getLatitudCentro() != null || filters.getLongitudCentro() != null) {
+            if (filters.getRadioKm() == null || filters.getLatitudCentro() == null || filters.getLongitudCentro() == null) {
+                throw new IllegalArgumentException(
+                    "La búsqueda por radio requiere latitudCentro, longitudCentro y radioKm"
+                );
+            }
+            if (filters.getRadioKm() <= 0 || filters.getRadioKm() > RADIO_MAXIMO_KM) {
+                throw new IllegalArgumentException("El radio debe ser mayor a 0 y de máximo " + (int) RADIO_MAXIMO_KM + " km");
+            }
+            if (Math.abs(filters.getLatitudCentro()) > 90 || Math.abs(filters.getLongitudCentro()) > 180) {
+                throw new IllegalArgumentException("Coordenadas del punto central inválidas");
+            }
+        }
+        
         // Validar valores negativos
         if (filters.getMagnitudMin() != null && filters.getMagnitudMin() < 0) {
             throw new IllegalArgumentException("La magnitud mínima no puede ser negativa");
@@ -209,11 +413,15 @@ public class SismoService {
         }
     }
 
-    private void refrescarCacheRecientes() {
-        var pageable = PageRequest.of(0, MAX_SISMOS_RECIENTES, Sort.by(Sort.Direction.DESC, "fechaHora"));
-        List<SismoDTO> sismosActualizados = sismoMapper.toDTOList(
-            sismoRepository.findAll(pageable).getContent()
-        );
-        redisCacheService.guardarSismosRecientes(sismosActualizados);
+    /**
+     * Tras una eliminación el cache queda con un sismo menos; trae de BD el siguiente más antiguo
+     */
+    private void completarCacheRecientes() {
+        if (redisCacheService.contarSismosRecientes() >= MAX_SISMOS_RECIENTES) {
+            return;
+        }
+        redisCacheService.obtenerFechaMasAntigua()
+            .flatMap(sismoRepository::findFirstByFechaHoraLessThanOrderByFechaHoraDesc)
+            .ifPresent(sismo -> redisCacheService.agregarSismosRecientes(List.of(sismoMapper.toDTO(sismo))));
     }
 }
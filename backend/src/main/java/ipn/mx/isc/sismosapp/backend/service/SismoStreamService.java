@@ -0,0 +1,240 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stream SSE de sismos nuevos.
+ * Los eventos se publican por un canal de Redis para que todas las instancias los entreguen a sus clientes
+ * con el mismo id; cada instancia guarda los últimos eventos en un buffer circular para reanudar
+ * conexiones con Last-Event-ID. Las conexiones inactivas no ocupan hilos (SseEmitter es asíncrono)
+ * y los envíos se hacen en hilos virtuales, en orden y de uno en uno por conexión.
+ */
+@Service
+public class SismoStreamService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SismoStreamService.class);
+
+    public static final String CANAL_STREAM = "sismos:stream";
+    private static final String SECUENCIA_KEY = "sismos:stream:seq";
+    private static final String EVENTO_SISMOS = "sismos";
+    private static final String EVENTO_REINICIO = "reinicio";
+    private static final int CAPACIDAD_BUFFER = 256;
+    private static final long TIMEOUT_CONEXION_MS = 30 * 60 * 1000L;
+    // INCR y PUBLISH atómicos: el canal entrega los eventos en el mismo orden que sus ids
+    private static final RedisScript<Long> PUBLICAR = new DefaultRedisScript<>(
+        "local id = redis.call('INCR', KEYS[1]) "
+            + "redis.call('PUBLISH', ARGV[1], '{\"id\":' .. id .. ',\"sismos\":' .. ARGV[2] .. '}') "
+            + "return id",
+        Long.class
+    );
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    private final Map<SseEmitter, Conexion> conexiones = new ConcurrentHashMap<>();
+    private final ArrayDeque<EventoSismos> buffer = new ArrayDeque<>(CAPACIDAD_BUFFER);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+    private record EventoSismos(long id, String datos) {
+    }
+
+    /**
+     * Cola de envíos de una conexión. Solo un hilo a la vez la vacía, así los eventos llegan en el orden
+     * en que se encolaron y el id que el cliente guarda para Last-Event-ID nunca retrocede.
+     */
+    private final class Conexion {
+
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pendientes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean enviando = new AtomicBoolean(false);
+
+        private Conexion(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void encolar(SseEmitter.SseEventBuilder evento) {
+            pendientes.add(evento);
+            if (enviando.compareAndSet(false, true)) {
+                envios.execute(this::vaciar);
+            }
+        }
+
+        private void vaciar() {
+            do {
+                SseEmitter.SseEventBuilder evento;
+                while ((evento = pendientes.poll()) != null) {
+                    if (!enviar(emitter, evento)) {
+                        pendientes.clear();
+                        break;
+                    }
+                }
+                enviando.set(false);
+                // Un evento encolado justo después del último poll no debe quedarse esperando
+            } while (!pendientes.isEmpty() && enviando.compareAndSet(false, true));
+        }
+    }
+
+    public SismoStreamService(RedisTemplate<String, String> redisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void suscribir() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CANAL_STREAM));
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        conexiones.keySet().forEach(SseEmitter::complete);
+        envios.shutdown();
+    }
+
+    /**
+     * Registra una nueva conexión SSE. Si el cliente envía Last-Event-ID se le reenvían los eventos
+     * posteriores que sigan en el buffer; si ya no están, recibe un evento "reinicio" para recargar la lista.
+     */
+    public SseEmitter conectar(Long ultimoEventoId) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_CONEXION_MS);
+        emitter.onCompletion(() -> conexiones.remove(emitter));
+        emitter.onTimeout(() -> conexiones.remove(emitter));
+        emitter.onError(e -> conexiones.remove(emitter));
+
+        // Bajo el lock para que ningún evento se publique entre la repetición y el registro
+        lock.lock();
+        try {
+            if (ultimoEventoId != null) {
+                reenviarDesde(emitter, ultimoEventoId);
+            }
+            conexiones.put(emitter, new Conexion(emitter));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        } finally {
+            lock.unlock();
+        }
+
+        return emitter;
+    }
+
+    /**
+     * Publica un lote de sismos nuevos a todas las instancias. Debe llamarse después del commit
+     * que los insertó, para que ningún cliente reciba sismos que terminen revirtiéndose.
+     */
+    public void publicar(List<SismoDTO> sismos) {
+        if (sismos == null || sismos.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.execute(PUBLICAR, List.of(SECUENCIA_KEY), CANAL_STREAM, objectMapper.writeValueAsString(sismos));
+        } catch (Exception e) {
+            logger.error("Error al publicar sismos en el stream: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        EventoSismos evento;
+        try {
+            JsonNode mensaje = objectMapper.readTree(new String(message.getBody(), StandardCharsets.UTF_8));
+            evento = new EventoSismos(mensaje.get("id").asLong(), objectMapper.writeValueAsString(mensaje.get("sismos")));
+        } catch (JsonProcessingException e) {
+            logger.error("Mensaje inválido en el canal de stream: {}", e.getMessage());
+            return;
+        }
+
+        // Se encola bajo el lock para que el orden de cada conexión sea el mismo que el del buffer
+        lock.lock();
+        try {
+            if (buffer.size() == CAPACIDAD_BUFFER) {
+                buffer.removeFirst();
+            }
+            buffer.addLast(evento);
+            for (Conexion conexion : conexiones.values()) {
+                conexion.encolar(SseEmitter.event()
+                    .id(String.valueOf(evento.id()))
+                    .name(EVENTO_SISMOS)
+                    .data(evento.datos(), MediaType.APPLICATION_JSON));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Heartbeat para mantener vivas las conexiones detrás de proxies y detectar clientes desconectados
+     */
+    @Scheduled(fixedRate = 15000)
+    public void enviarHeartbeat() {
+        for (Conexion conexion : conexiones.values()) {
+            conexion.encolar(SseEmitter.event().comment("ping"));
+        }
+    }
+
+    public int contarConexiones() {
+        return conexiones.size();
+    }
+
+    private void reenviarDesde(SseEmitter emitter, long ultimoEventoId) throws IOException {
+        EventoSismos primero = buffer.peekFirst();
+        if (primero == null || primero.id() > ultimoEventoId + 1) {
+            // Hueco que el buffer ya no cubre (o reinicio del servidor)
+            emitter.send(SseEmitter.event().name(EVENTO_REINICIO).data("{}", MediaType.APPLICATION_JSON));
+            return;
+        }
+        for (EventoSismos evento : buffer) {
+            if (evento.id() > ultimoEventoId) {
+                emitter.send(SseEmitter.event()
+                    .id(String.valueOf(evento.id()))
+                    .name(EVENTO_SISMOS)
+                    .data(evento.datos(), MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    private boolean enviar(SseEmitter emitter, SseEmitter.SseEventBuilder evento) {
+        try {
+            emitter.send(evento);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            conexiones.remove(emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import ipn.mx.isc.sismosapp.backend.model.dto.ClaveSismo;
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
+import ipn.mx.isc.sismosapp.backend.model.mapper.SismoMapper;
+import ipn.mx.isc.sismosapp.backend.repository.SismoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Almacena los sismos de un tick de scraping con cambios: inserción, outbox de envíos push
+ * y, al confirmar, cache, stream SSE y versión de la página.
+ * Es la única parte transaccional del tick; la descarga de la página corre antes, sin conexión a BD.
+ */
+@Service
+public class SismosScrapeadosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SismosScrapeadosService.class);
+
+    private final ScraperService scraperService;
+    private final SismoRepository sismoRepository;
+    private final RedisCacheService redisCacheService;
+    private final SismoMapper sismoMapper;
+    private final PushOutboxService pushOutboxService;
+    private final SismoStreamService sismoStreamService;
+
+    public SismosScrapeadosService(ScraperService scraperService,
+                                   SismoRepository sismoRepository,
+                                   RedisCacheService redisCacheService,
+                                   SismoMapper sismoMapper,
+                                   PushOutboxService pushOutboxService,
+                                   SismoStreamService sismoStreamService) {
+        this.scraperService = scraperService;
+        this.sismoRepository = sismoRepository;
+        this.redisCacheService = redisCacheService;
+        this.sismoMapper = sismoMapper;
+        this.pushOutboxService = pushOutboxService;
+        this.sismoStreamService = sismoStreamService;
+    }
+
+    @Transactional
+    public void almacenar(ScraperService.ResultadoScraping resultado) {
+        // Obtener snapshot actual de Redis para verificación rápida
+        List<SismoDTO> sismosEnCache = redisCacheService.obtenerSismosRecientes();
+        Set<ClaveSismo> clavesEnCache = sismosEnCache == null
+            ? Set.of()
+            : sismosEnCache.stream().map(ClaveSismo::de).collect(Collectors.toSet());
+
+        // Descartar los que ya están en cache o repetidos dentro de la misma página
+        List<Sismo> candidatos = new ArrayList<>();
+        Set<ClaveSismo> vistos = new HashSet<>();
+        int duplicados = 0;
+
+        for (Sismo sismo : resultado.sismos()) {
+            ClaveSismo clave = ClaveSismo.de(sismo);
+            if (clavesEnCache.contains(clave) || !vistos.add(clave)) {
+                duplicados++;
+                continue;
+            }
+            candidatos.add(sismo);
+        }
+
+        // Inserción idempotente de todo el lote: la restricción única descarta los que ya están en BD
+        List<SismoDTO> nuevosSismos = new ArrayList<>();
+        if (!candidatos.isEmpty()) {
+            List<Sismo> insertados = sismoRepository.insertarIgnorandoDuplicados(candidatos);
+            duplicados += candidatos.size() - insertados.size();
+            nuevosSismos = sismoMapper.toDTOList(insertados);
+        }
+        int nuevos = nuevosSismos.size();
+
+        logger.info("Scraping finalizado. Nuevos: {}, Duplicados: {}", nuevos, duplicados);
+
+        // Si hay nuevos sismos, encolar los envíos FCM en la misma transacción (los workers del outbox
+        // los entregan después del commit); el cache y el stream SSE solo los ven si el commit se confirma
+        if (!nuevosSismos.isEmpty()) {
+            List<SismoDTO> confirmados = nuevosSismos;
+            DespuesDelCommit.ejecutar(() -> {
+                redisCacheService.agregarSismosRecientes(confirmados);
+                sismoStreamService.publicar(confirmados);
+            });
+            pushOutboxService.encolar(nuevosSismos, 5.5);
+        }
+
+        // La versión (ETag, Last-Modified, hash) se recuerda solo si el tick se confirma;
+        // si el commit falla, el siguiente tick vuelve a descargar y procesar la página
+        DespuesDelCommit.ejecutar(() -> scraperService.confirmarVersion(resultado));
+    }
+}
@@ -0,0 +1,370 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.Tag;
+import org.jsoup.select.Elements;
+
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extractor de filas de la tabla del SSN en una sola pasada sobre el HTML.
+ * Recorre las etiquetas sin construir el árbol DOM y emite cada fila
+ * (tr.1days / tr.2days) con las celdas que necesita el scraper.
+ * {@link #extraerConDom(Document, Consumer)} obtiene las mismas filas con selectores de Jsoup;
+ * se usa como respaldo y como referencia en las pruebas.
+ */
+final class SsnRowExtractor {
+
+    private static final Pattern ATRIBUTO = Pattern.compile(
+        "\\s(class|id)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+))",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    private static final int MAGNITUD = 0;
+    private static final int FECHA = 1;
+    private static final int HORA = 2;
+    private static final int LUGAR = 3;
+    private static final int LATITUD = 4;
+    private static final int LONGITUD = 5;
+    private static final int PROFUNDIDAD = 6;
+
+    private SsnRowExtractor() {
+    }
+
+    /**
+     * Celdas de una fila del SSN, con el texto ya normalizado.
+     */
+    record FilaSsn(String magnitud, String fecha, String hora, String lugar,
+                   String latitud, String longitud, String profundidad) {
+
+        /**
+         * Una fila del SSN siempre trae magnitud, fecha, hora y coordenadas;
+         * si falta alguna, la extracción no reconoció bien la estructura.
+         */
+        boolean completa() {
+            return !magnitud.isEmpty() && !fecha.isEmpty() && !hora.isEmpty()
+                && !latitud.isEmpty() && !longitud.isEmpty();
+        }
+    }
+
+    /**
+     * Recorre el HTML y entrega cada fila encontrada al consumidor conforme se cierra.
+     *
+     * @return Número de filas encontradas
+     */
+    static int extraer(String html, Consumer<FilaSsn> consumidor) {
+        int filas = 0;
+        String[] celdas = null;
+        int pos = 0;
+        int length = html.length();
+
+        while (pos < length) {
+            int inicio = html.indexOf('<', pos);
+            if (inicio < 0 || inicio + 1 >= length) {
+                break;
+            }
+
+            if (html.startsWith("<!--", inicio)) {
+                int finComentario = html.indexOf("-->", inicio + 4);
+                pos = finComentario < 0 ? length : finComentario + 3;
+                continue;
+            }
+
+            int fin = html.indexOf('>', inicio);
+            if (fin < 0) {
+                break;
+            }
+
+            boolean cierre = html.charAt(inicio + 1) == '/';
+            int inicioNombre = cierre ? inicio + 2 : inicio + 1;
+            int finNombre = inicioNombre;
+            while (finNombre < fin && Character.isLetterOrDigit(html.charAt(finNombre))) {
+                finNombre++;
+            }
+            String nombre = html.substring(inicioNombre, finNombre).toLowerCase();
+            pos = fin + 1;
+
+            if (cierre) {
+                if (celdas != null && nombre.equals("tr")) {
+                    consumidor.accept(crearFila(celdas));
+                    filas++;
+                    celdas = null;
+                }
+                continue;
+            }
+
+            switch (nombre) {
+                case "script", "style" -> {
+                    // Contenido de texto crudo: saltar hasta la etiqueta de cierre
+                    int finBloque = indexOfIgnoreCase(html, "</" + nombre, pos);
+                    pos = finBloque < 0 ? length : finBloque;
+                }
+                case "tr" -> {
+                    if (celdas != null) {
+                        // Fila sin cierre explícito
+                        consumidor.accept(crearFila(celdas));
+                        filas++;
+                        celdas = null;
+                    }
+                    String clase = atributo(html, finNombre, fin, "class");
+                    if (tieneClase(clase, "1days") || tieneClase(clase, "2days")) {
+                        celdas = new String[7];
+                    }
+                }
+                case "td", "span" -> {
+                    if (celdas == null) {
+                        continue;
+                    }
+                    int campo = identificarCampo(nombre, html, finNombre, fin);
+                    if (campo >= 0 && celdas[campo] == null) {
+                        celdas[campo] = textoDeElemento(html, pos, nombre);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        if (celdas != null) {
+            consumidor.accept(crearFila(celdas));
+            filas++;
+        }
+        return filas;
+    }
+
+    /**
+     * Extrae las filas del documento ya construido por Jsoup, con los mismos selectores
+     * que usaba el scraper antes de la extracción en una pasada.
+     *
+     * @return Número de filas encontradas
+     */
+    static int extraerConDom(Document document, Consumer<FilaSsn> consumidor) {
+        Elements rows = document.select("tr.1days, tr.2days");
+        for (Element row : rows) {
+            consumidor.accept(new FilaSsn(
+                normalizar(row.select("td.latest-mag").text()),
+                normalizar(row.select("span[id^=date_]").text()),
+                normalizar(row.select("span[id^=time_]").text()),
+                normalizar(row.select("span[id^=epi_]").text()),
+                normalizar(row.select("span[id^=lat_]").text()),
+                normalizar(row.select("span[id^=lon_]").text()),
+                normalizar(row.select("td[id^=prof_]").text())
+            ));
+        }
+        return rows.size();
+    }
+
+    private static int identificarCampo(String nombre, String html, int desde, int hasta) {
+        if (nombre.equals("td")) {
+            if (tieneClase(atributo(html, desde, hasta, "class"), "latest-mag")) {
+                return MAGNITUD;
+            }
+            String id = atributo(html, desde, hasta, "id");
+            return id != null && id.startsWith("prof_") ? PROFUNDIDAD : -1;
+        }
+
+        String id = atributo(html, desde, hasta, "id");
+        if (id == null) {
+            return -1;
+        }
+        if (id.startsWith("date_")) {
+            return FECHA;
+        }
+        if (id.startsWith("time_")) {
+            return HORA;
+        }
+        if (id.startsWith("epi_")) {
+            return LUGAR;
+        }
+        if (id.startsWith("lat_")) {
+            return LATITUD;
+        }
+        if (id.startsWith("lon_")) {
+            return LONGITUD;
+        }
+        return -1;
+    }
+
+    private static String atributo(String html, int desde, int hasta, String nombre) {
+        Matcher matcher = ATRIBUTO.matcher(html).region(desde, hasta);
+        while (matcher.find()) {
+            if (matcher.group(1).equalsIgnoreCase(nombre)) {
+                if (matcher.group(2) != null) {
+                    return matcher.group(2);
+                }
+                return matcher.group(3) != null ? matcher.group(3) : matcher.group(4);
+            }
+        }
+        return null;
+    }
+
+    private static boolean tieneClase(String clases, String clase) {
+        if (clases == null) {
+            return false;
+        }
+        for (String valor : clases.trim().split("\\s+")) {
+            if (valor.equals(clase)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene el texto de un elemento desde el final de su etiqueta de apertura hasta su cierre,
+     * omitiendo etiquetas internas y normalizando espacios como lo hace Element.text().
+     */
+    private static String textoDeElemento(String html, int desde, String nombre) {
+        StringBuilder texto = new StringBuilder();
+        int profundidad = 1;
+        int pos = desde;
+        int length = html.length();
+
+        while (pos < length) {
+            int inicio = html.indexOf('<', pos);
+            if (inicio < 0) {
+                texto.append(html, pos, length);
+                break;
+            }
+            texto.append(html, pos, inicio);
+
+            if (html.startsWith("<!--", inicio)) {
+                int finComentario = html.indexOf("-->", inicio + 4);
+                pos = finComentario < 0 ? length : finComentario + 3;
+                continue;
+            }
+
+            int fin = html.indexOf('>', inicio);
+            if (fin < 0) {
+                break;
+            }
+
+            boolean cierre = inicio + 1 < length && html.charAt(inicio + 1) == '/';
+            int inicioNombre = cierre ? inicio + 2 : inicio + 1;
+            int finNombre = inicioNombre;
+            while (finNombre < fin && Character.isLetterOrDigit(html.charAt(finNombre))) {
+                finNombre++;
+            }
+            String etiqueta = html.substring(inicioNombre, finNombre).toLowerCase();
+            if (etiqueta.equals(nombre)) {
+                profundidad += cierre ? -1 : 1;
+                if (profundidad == 0) {
+                    break;
+                }
+            }
+            if (!cierre && esSaltoDeBloque(etiqueta)) {
+                texto.append(' ');
+            }
+            pos = fin + 1;
+        }
+
+        return normalizar(decodificarEntidades(texto));
+    }
+
+    /**
+     * Element.text() separa con un espacio al abrir un <br> o un elemento de bloque;
+     * se usa la misma tabla de etiquetas de Jsoup para que ambos caminos den el mismo texto.
+     */
+    private static boolean esSaltoDeBloque(String etiqueta) {
+        return !etiqueta.isEmpty() && (etiqueta.equals("br") || Tag.valueOf(etiqueta).isBlock());
+    }
+
+    private static String decodificarEntidades(CharSequence texto) {
+        StringBuilder resultado = new StringBuilder(texto.length());
+        int length = texto.length();
+        for (int i = 0; i < length; i++) {
+            char c = texto.charAt(i);
+            int finEntidad = c == '&' ? indexOf(texto, ';', i + 1, Math.min(length, i + 12)) : -1;
+            if (finEntidad < 0) {
+                resultado.append(c);
+                continue;
+            }
+
+            String referencia = texto.subSequence(i + 1, finEntidad).toString();
+            Integer codigo = null;
+            try {
+                if (referencia.startsWith("#x") || referencia.startsWith("#X")) {
+                    codigo = Integer.parseInt(referencia.substring(2), 16);
+                } else if (referencia.startsWith("#")) {
+                    codigo = Integer.parseInt(referencia.substring(1));
+                } else if (Entities.isNamedEntity(referencia)) {
+                    codigo = (int) Entities.getCharacterByName(referencia);
+                }
+            } catch (NumberFormatException e) {
+                codigo = null;
+            }
+
+            if (codigo == null || !Character.isValidCodePoint(codigo)) {
+                resultado.append(c);
+                continue;
+            }
+            resultado.appendCodePoint(codigo);
+            i = finEntidad;
+        }
+        return resultado.toString();
+    }
+
+    private static int indexOf(CharSequence texto, char buscado, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            if (texto.charAt(i) == buscado) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String normalizar(String texto) {
+        StringBuilder resultado = new StringBuilder(texto.length());
+        boolean espacioPendiente = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (esEspacio(c)) {
+                espacioPendiente = resultado.length() > 0;
+            } else {
+                if (espacioPendiente) {
+                    resultado.append(' ');
+                    espacioPendiente = false;
+                }
+                resultado.append(c);
+            }
+        }
+        return resultado.toString();
+    }
+
+    /**
+     * Espacios que colapsa Element.text(), más el &nbsp; (que según la versión de Jsoup se conserva o no),
+     * para que la profundidad "10&nbsp;km" se lea igual en ambos caminos
+     */
+    private static boolean esEspacio(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == '\u00a0';
+    }
+
+    private static int indexOfIgnoreCase(String html, String buscado, int desde) {
+        for (int i = html.indexOf('<', desde); i >= 0; i = html.indexOf('<', i + 1)) {
+            if (html.regionMatches(true, i, buscado, 0, buscado.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static FilaSsn crearFila(String[] celdas) {
+        return new FilaSsn(
+            valor(celdas[MAGNITUD]),
+            valor(celdas[FECHA]),
+            valor(celdas[HORA]),
+            valor(celdas[LUGAR]),
+            valor(celdas[LATITUD]),
+            valor(celdas[LONGITUD]),
+            valor(celdas[PROFUNDIDAD])
+        );
+    }
+
+    private static String valor(String celda) {
+        return celda == null ? "" : celda;
+    }
+}
@@ -0,0 +1,79 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import ipn.mx.isc.sismosapp.backend.repository.DeviceTokenHealthRepository;
+import ipn.mx.isc.sismosapp.backend.repository.DeviceTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Salud de entrega de los tokens FCM.
+ * Registra fallos y recuperaciones por lote, elimina tokens no registrados o muertos en bloque
+ * y define qué tokens se omiten en los envíos masivos.
+ */
+@Service
+public class TokenHealthService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenHealthService.class);
+
+    // Con estos fallos seguidos el token se omite, salvo un reintento por periodo
+    public static final int FALLOS_PARA_OMITIR = 3;
+    public static final Duration PERIODO_REINTENTO = Duration.ofDays(1);
+
+    // Con estos fallos seguidos, en una racha sin éxitos que dura más que el periodo, el token se elimina
+    private static final int FALLOS_PARA_ELIMINAR = 5;
+    private static final Duration PERIODO_SIN_EXITO = Duration.ofDays(30);
+
+    private final DeviceTokenHealthRepository deviceTokenHealthRepository;
+    private final DeviceTokenRepository deviceTokenRepository;
+
+    public TokenHealthService(DeviceTokenHealthRepository deviceTokenHealthRepository,
+                              DeviceTokenRepository deviceTokenRepository) {
+        this.deviceTokenHealthRepository = deviceTokenHealthRepository;
+        this.deviceTokenRepository = deviceTokenRepository;
+    }
+
+    /**
+     * Registra el resultado de un lote: elimina los no registrados, suma fallos y reinicia los recuperados
+     */
+    public void registrarResultado(FcmSender.ResultadoLote resultado) {
+        if (!resultado.tokensInvalidos().isEmpty()) {
+            deviceTokenRepository.eliminarPorTokens(resultado.tokensInvalidos());
+        }
+        registrarFallos(resultado.tokensConFallo());
+        if (!resultado.tokensExitosos().isEmpty()) {
+            deviceTokenHealthRepository.registrarExitos(resultado.tokensExitosos().toArray(String[]::new));
+        }
+    }
+
+    public void registrarFallos(List<String> tokens) {
+        if (!tokens.isEmpty()) {
+            deviceTokenHealthRepository.registrarFallos(tokens.toArray(String[]::new));
+        }
+    }
+
+    /**
+     * Fecha desde la que un fallo mantiene omitido al token en los envíos masivos
+     */
+    public OffsetDateTime inicioOmision() {
+        return OffsetDateTime.now().minus(PERIODO_REINTENTO);
+    }
+
+    /**
+     * Elimina en bloque los tokens muertos y limpia registros que ya no aplican
+     */
+    public int eliminarTokensMuertos() {
+        int eliminados = deviceTokenHealthRepository.eliminarTokensMuertos(
+            FALLOS_PARA_ELIMINAR, OffsetDateTime.now().minus(PERIODO_SIN_EXITO)
+        );
+        int limpiados = deviceTokenHealthRepository.limpiarRegistros();
+        if (eliminados > 0 || limpiados > 0) {
+            logger.info("Tokens muertos eliminados: {}, Registros de salud limpiados: {}", eliminados, limpiados);
+        }
+        return eliminados;
+    }
+}
@@ -0,0 +1,60 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import ipn.mx.isc.sismosapp.backend.model.dto.TokenDispositivo;
+import ipn.mx.isc.sismosapp.backend.repository.DeviceTokenRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Recorrido de todos los tokens registrados con cursor por id (keyset).
+ * Solo lee la columna token y mantiene una página en memoria a la vez,
+ * así el consumo de memoria no crece con el número de dispositivos.
+ * Omite los tokens con fallos seguidos recientes; se reintentan una vez por periodo
+ * (ver TokenHealthService) hasta recuperarse o ser eliminados.
+ */
+@Service
+public class TokenStreamService {
+
+    private final DeviceTokenRepository deviceTokenRepository;
+    private final TokenHealthService tokenHealthService;
+
+    public TokenStreamService(DeviceTokenRepository deviceTokenRepository, TokenHealthService tokenHealthService) {
+        this.deviceTokenRepository = deviceTokenRepository;
+        this.tokenHealthService = tokenHealthService;
+    }
+
+    /**
+     * Entrega los tokens al consumidor en páginas ordenadas por id
+     *
+     * @param tamanoPagina Tokens por página
+     * @param consumidor   Recibe cada página; la siguiente se consulta cuando termina
+     * @return Total de tokens recorridos
+     */
+    public long recorrer(int tamanoPagina, Consumer<List<String>> consumidor) {
+        long ultimoId = 0;
+        long total = 0;
+        OffsetDateTime inicioOmision = tokenHealthService.inicioOmision();
+
+        while (true) {
+            List<TokenDispositivo> pagina =
+                deviceTokenRepository.findEntregables(ultimoId, TokenHealthService.FALLOS_PARA_OMITIR,
+                    inicioOmision, Limit.of(tamanoPagina));
+            if (pagina.isEmpty()) {
+                break;
+            }
+            ultimoId = pagina.get(pagina.size() - 1).getId();
+            total += pagina.size();
+
+            consumidor.accept(pagina.stream().map(TokenDispositivo::getToken).toList());
+
+            if (pagina.size() < tamanoPagina) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,125 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+import ipn.mx.isc.sismosapp.backend.model.entities.DeviceToken;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tópicos FCM de las alertas.
+ * Cada dispositivo se suscribe a un nivel de magnitud (mag-4plus ... mag-7plus) y, si lo indicó,
+ * a su estado (estado-OAX). Una alerta es un solo mensaje a la condición
+ * "nivel alcanzado por los sismos o estado de los sismos", y FCM lo entrega una vez por dispositivo.
+ */
+public final class TopicosFcm {
+
+    public static final int NIVEL_MINIMO = 4;
+    public static final int NIVEL_MAXIMO = 7;
+    // Nivel para tokens sin preferencia: recibe todas las alertas, como antes de los tópicos
+    public static final int NIVEL_PREDETERMINADO = NIVEL_MINIMO;
+    // Límite de FCM de tópicos en una condición
+    public static final int MAX_TOPICOS_CONDICION = 5;
+
+    private TopicosFcm() {
+    }
+
+    public static String topicoMagnitud(int nivel) {
+        return "mag-" + nivel + "plus";
+    }
+
+    public static String topicoEstado(EstadoMexicano estado) {
+        return "estado-" + estado.getAbreviatura();
+    }
+
+    /**
+     * Ajusta una magnitud mínima solicitada a un nivel existente
+     */
+    public static int normalizarNivel(Integer magnitudMinima) {
+        if (magnitudMinima == null) {
+            return NIVEL_PREDETERMINADO;
+        }
+        return Math.max(NIVEL_MINIMO, Math.min(NIVEL_MAXIMO, magnitudMinima));
+    }
+
+    /**
+     * Tópicos a los que debe estar suscrito un dispositivo según sus preferencias
+     */
+    public static List<String> topicosDe(DeviceToken deviceToken) {
+        List<String> topicos = new ArrayList<>(2);
+        topicos.add(topicoMagnitud(normalizarNivel(deviceToken.getMagnitudMinima())));
+        EstadoMexicano.fromAbreviatura(deviceToken.getEstado())
+            .ifPresent(estado -> topicos.add(topicoEstado(estado)));
+        return topicos;
+    }
+
+    /**
+     * Tópicos en los que el dispositivo está suscrito en FCM. Los tokens anteriores a este registro
+     * se asumen suscritos a sus tópicos actuales si ya estaban sincronizados.
+     */
+    public static Set<String> suscritosDe(DeviceToken deviceToken) {
+        String suscritos = deviceToken.getTopicosSuscritos();
+        if (suscritos == null) {
+            return deviceToken.isTopicosSincronizados() ? new LinkedHashSet<>(topicosDe(deviceToken)) : new LinkedHashSet<>();
+        }
+        Set<String> topicos = new LinkedHashSet<>();
+        for (String topico : suscritos.split(",")) {
+            if (!topico.isBlank()) {
+                topicos.add(topico);
+            }
+        }
+        return topicos;
+    }
+
+    /**
+     * Valor de topicosSuscritos para un conjunto de tópicos (cadena vacía si no hay ninguno)
+     */
+    public static String unir(Collection<String> topicos) {
+        return String.join(",", topicos);
+    }
+
+    /**
+     * Indica si una alerta a los tópicos indicados debe enviarse al dispositivo por token:
+     * le interesa por sus preferencias, pero aún no está suscrito a ninguno de esos tópicos.
+     */
+    public static boolean requiereEnvioDirecto(DeviceToken deviceToken, Set<String> topicosAlerta) {
+        boolean interesado = topicosDe(deviceToken).stream().anyMatch(topicosAlerta::contains);
+        boolean alcanzado = suscritosDe(deviceToken).stream().anyMatch(topicosAlerta::contains);
+        return interesado && !alcanzado;
+    }
+
+    /**
+     * Tópicos de los dispositivos interesados en el sismo: los niveles que alcanza su magnitud
+     * y su estado. Son a lo más 5 (4 niveles + estado).
+     */
+    public static Set<String> topicosAlerta(SismoDTO sismo) {
+        Set<String> topicos = new LinkedHashSet<>();
+        if (sismo.getMagnitud() != null) {
+            for (int nivel = NIVEL_MINIMO; nivel <= NIVEL_MAXIMO && sismo.getMagnitud() >= nivel; nivel++) {
+                topicos.add(topicoMagnitud(nivel));
+            }
+        }
+        EstadoMexicano.fromLugar(sismo.getLugar())
+            .ifPresent(estado -> topicos.add(topicoEstado(estado)));
+        return topicos;
+    }
+
+    /**
+     * Condición FCM que alcanza a los suscritos a cualquiera de los tópicos
+     *
+     * @return null si no hay tópicos
+     */
+    public static String condicion(Collection<String> topicos) {
+        if (topicos.isEmpty()) {
+            return null;
+        }
+        return topicos.stream()
+            .map(topico -> "'" + topico + "' in topics")
+            .collect(Collectors.joining(" || "));
+    }
+}
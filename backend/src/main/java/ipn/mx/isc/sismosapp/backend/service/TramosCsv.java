@@ -0,0 +1,115 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lee un CSV desde un byte dado y lo entrega en tramos de N registros. Cada tramo es un InputStream que
+ * termina justo después del salto de línea (fuera de comillas) de su último registro, así que
+ * {@link #offset()} y {@link #lineas()} al terminar un tramo son un punto de reanudación válido.
+ * En UTF-8 los bytes de '"' y '\n' no aparecen dentro de caracteres multibyte, así que se cuentan sobre bytes.
+ */
+final class TramosCsv implements Closeable {
+
+    private final InputStream entrada;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int posicion;
+    private int limite;
+    private long offset;
+    private long lineas;
+    private boolean entreComillas;
+
+    /**
+     * @param offset Inicio de un registro (0 o un punto de reanudación guardado)
+     * @param lineas Registros antes de offset
+     */
+    TramosCsv(Path archivo, long offset, long lineas) throws IOException {
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        canal.position(offset);
+        this.entrada = Channels.newInputStream(canal);
+        this.offset = offset;
+        this.lineas = lineas;
+    }
+
+    boolean hayMas() throws IOException {
+        return llenar();
+    }
+
+    long offset() {
+        return offset;
+    }
+
+    long lineas() {
+        return lineas;
+    }
+
+    /**
+     * Siguiente tramo; debe leerse completo (hasta -1) antes de pedir otro
+     */
+    InputStream siguiente(int registros) {
+        return new Tramo(registros);
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    private boolean llenar() throws IOException {
+        if (posicion < limite) {
+            return true;
+        }
+        int leidos = entrada.read(buffer);
+        if (leidos <= 0) {
+            return false;
+        }
+        posicion = 0;
+        limite = leidos;
+        return true;
+    }
+
+    private final class Tramo extends InputStream {
+
+        private int restantes;
+
+        Tramo(int registros) {
+            this.restantes = registros;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] uno = new byte[1];
+            return read(uno, 0, 1) == -1 ? -1 : uno[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int longitud) throws IOException {
+            if (longitud == 0) {
+                return 0;
+            }
+            if (restantes == 0 || !llenar()) {
+                return -1;
+            }
+
+            int copiados = 0;
+            while (copiados < longitud && posicion < limite && restantes > 0) {
+                byte b = buffer[posicion++];
+                destino[inicio + copiados++] = b;
+                if (b == '"') {
+                    // Las comillas escapadas ("") cambian el estado dos veces
+                    entreComillas = !entreComillas;
+                } else if (b == '\n' && !entreComillas) {
+                    restantes--;
+                    lineas++;
+                }
+            }
+            offset += copiados;
+            return copiados;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ipn.mx.isc.sismosapp.backend.specification;
+
+import ipn.mx.isc.sismosapp.backend.model.dto.CursorPagina;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Paginación por cursor (keyset) sobre (fechaHora, id) para entidades con esos atributos.
+ * Cada página es un rango del índice (fechaHora, id) sin OFFSET ni count(*),
+ * así cuesta lo mismo sin importar su profundidad.
+ */
+public final class PaginacionKeyset {
+
+    public static final Sort ORDEN = Sort.by(Sort.Direction.DESC, "fechaHora", "id");
+    public static final int TAMANO_MAXIMO = 1000;
+
+    private PaginacionKeyset() {
+    }
+
+    /**
+     * Limita el tamaño de página pedido por el cliente (también evita el desbordamiento de {@code tamano + 1})
+     */
+    public static int limitarTamano(int tamano) {
+        return Math.min(tamano, TAMANO_MAXIMO);
+    }
+
+    /**
+     * Registros posteriores al cursor en el orden (fechaHora DESC, id DESC)
+     */
+    public static <T> Specification<T> despuesDe(CursorPagina cursor) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+            criteriaBuilder.lessThan(root.get("fechaHora"), cursor.fechaHora()),
+            criteriaBuilder.and(
+                criteriaBuilder.equal(root.get("fechaHora"), cursor.fechaHora()),
+                criteriaBuilder.lessThan(root.get("id"), cursor.id())
+            )
+        );
+    }
+
+    /**
+     * Combina los filtros con el cursor; sin cursor es la primera página
+     */
+    public static <T> Specification<T> conCursor(Specification<T> filtros, CursorPagina cursor) {
+        if (cursor == null) {
+            return filtros;
+        }
+        Specification<T> despues = despuesDe(cursor);
+        return filtros == null ? despues : filtros.and(despues);
+    }
+
+    /**
+     * Convierte una consulta de {@code tamano + 1} filas en un Slice: la fila extra solo indica si hay más
+     */
+    public static <T> Slice<T> recortar(List<T> filas, int tamano) {
+        boolean hayMas = filas.size() > tamano;
+        List<T> contenido = hayMas ? filas.subList(0, tamano) : filas;
+        return new SliceImpl<>(contenido, PageRequest.of(0, tamano, ORDEN), hayMas);
+    }
+}
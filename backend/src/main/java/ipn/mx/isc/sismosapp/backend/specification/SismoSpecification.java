@@ -3,7 +3,10 @@ package ipn.mx.isc.sismosapp.backend.specification;
 import ipn.mx.isc.sismosapp.backend.model.dto.SismoFilterDTO;
 import ipn.mx.isc.sismosapp.backend.model.entities.Sismo;
 import ipn.mx.isc.sismosapp.backend.model.enums.EstadoMexicano;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
@@ -15,6 +18,9 @@ import java.util.List;
  */
 public class SismoSpecification {
 
+    public static final double RADIO_TIERRA_KM = 6371.0;
+    private static final double KM_POR_GRADO = RADIO_TIERRA_KM * Math.PI / 180;
+
     /**
      * Construye una especificación dinámica basada en los filtros proporcionados
      * Solo incluye criterios que no sean nulos
@@ -51,15 +57,11 @@ public class SismoSpecification {
                 ));
             }
             
-            // Filtro por estado (búsqueda por abreviatura oficial al final del campo)
-            // Formato esperado: "XX km al DIRECCION de CIUDAD, ESTADO"
+            // Filtro por estado (columna indexada, calculada del lugar al ingresar el sismo)
             if (filters.getEstado() != null && !filters.getEstado().trim().isEmpty()) {
                 EstadoMexicano.fromNombreCompleto(filters.getEstado())
                     .ifPresent(estado -> {
-                        predicates.add(criteriaBuilder.like(
-                            criteriaBuilder.upper(root.get("lugar")),
-                            "%, " + estado.getAbreviatura().toUpperCase()
-                        ));
+                        predicates.add(criteriaBuilder.equal(root.get("estado"), estado));
                     });
             }
             
@@ -77,7 +79,62 @@ public class SismoSpecification {
                 ));
             }
             
+            // Filtro por área (rangos sobre el índice (latitud, longitud))
+            if (filters.getLatitudMin() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("latitud"), filters.getLatitudMin()));
+            }
+            if (filters.getLatitudMax() != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("latitud"), filters.getLatitudMax()));
+            }
+            if (filters.getLongitudMin() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("longitud"), filters.getLongitudMin()));
+            }
+            if (filters.getLongitudMax() != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("longitud"), filters.getLongitudMax()));
+            }
+            
+            // Filtro por radio alrededor de un punto
+            if (filters.getRadioKm() != null && filters.getLatitudCentro() != null && filters.getLongitudCentro() != null) {
+                agregarRadio(predicates, root, criteriaBuilder,
+                    filters.getLatitudCentro(), filters.getLongitudCentro(), filters.getRadioKm());
+            }
+            
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Radio en dos partes: un rectángulo que lo contiene (aprovecha el índice de latitud y longitud)
+     * y la distancia exacta sobre la esfera (ley de cosenos) solo para las filas dentro del rectángulo.
+     * Se compara el coseno de la distancia angular para no evaluar acos por fila.
+     */
+    private static void agregarRadio(List<Predicate> predicates, Root<?> root, CriteriaBuilder criteriaBuilder,
+                                     double latitudCentro, double longitudCentro, double radioKm) {
+        double deltaLatitud = radioKm / KM_POR_GRADO;
+        double cosenoCentro = Math.cos(Math.toRadians(latitudCentro));
+        // Cerca de los polos el rectángulo abarca todas las longitudes
+        double deltaLongitud = cosenoCentro > 0.01 ? Math.min(deltaLatitud / cosenoCentro, 180) : 180;
+
+        predicates.add(criteriaBuilder.between(root.get("latitud"), latitudCentro - deltaLatitud, latitudCentro + deltaLatitud));
+        if (deltaLongitud < 180) {
+            predicates.add(criteriaBuilder.between(
+                root.get("longitud"), longitudCentro - deltaLongitud, longitudCentro + deltaLongitud
+            ));
+        }
+
+        Expression<Double> latitud = criteriaBuilder.function("radians", Double.class, root.get("latitud"));
+        Expression<Double> longitud = criteriaBuilder.function("radians", Double.class, root.get("longitud"));
+        Expression<Double> cosenoDistancia = criteriaBuilder.sum(
+            criteriaBuilder.prod(
+                criteriaBuilder.function("sin", Double.class, latitud),
+                Math.sin(Math.toRadians(latitudCentro))
+            ),
+            criteriaBuilder.prod(
+                criteriaBuilder.prod(criteriaBuilder.function("cos", Double.class, latitud), cosenoCentro),
+                criteriaBuilder.function("cos", Double.class,
+                    criteriaBuilder.diff(longitud, Math.toRadians(longitudCentro)))
+            )
+        );
+        predicates.add(criteriaBuilder.greaterThanOrEqualTo(cosenoDistancia, Math.cos(radioKm / RADIO_TIERRA_KM)));
+    }
 }
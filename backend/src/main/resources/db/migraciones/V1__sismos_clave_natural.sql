@@ -0,0 +1,12 @@
+-- Elimina duplicados por clave natural (conserva el id menor) antes de crear el índice único
+DELETE FROM sismos a
+USING sismos b
+WHERE a.fecha_hora = b.fecha_hora
+  AND a.latitud = b.latitud
+  AND a.longitud = b.longitud
+  AND a.magnitud = b.magnitud
+  AND a.id > b.id;
+
+-- Si Hibernate ya creó la restricción con este nombre, no hace nada
+CREATE UNIQUE INDEX IF NOT EXISTS uk_sismos_clave_natural
+    ON sismos (fecha_hora, latitud, longitud, magnitud);
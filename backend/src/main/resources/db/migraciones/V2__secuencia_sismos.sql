@@ -0,0 +1,26 @@
+-- Secuencia de ingesta compartida por sismos y sismos_eliminados (cursor de /api/sismos/since)
+CREATE SEQUENCE IF NOT EXISTS sismos_secuencia_seq;
+
+ALTER TABLE sismos ADD COLUMN IF NOT EXISTS secuencia BIGINT;
+ALTER TABLE sismos ALTER COLUMN secuencia SET DEFAULT nextval('sismos_secuencia_seq');
+
+-- Numera los sismos existentes en orden de ingesta
+UPDATE sismos s
+SET secuencia = o.valor
+FROM (
+    SELECT id, nextval('sismos_secuencia_seq') AS valor
+    FROM (SELECT id FROM sismos WHERE secuencia IS NULL ORDER BY created_at, id) pendientes
+) o
+WHERE s.id = o.id;
+
+ALTER TABLE sismos ALTER COLUMN secuencia SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_sismos_secuencia ON sismos (secuencia);
+
+CREATE TABLE IF NOT EXISTS sismos_eliminados (
+    id VARCHAR(255) PRIMARY KEY,
+    secuencia BIGINT,
+    eliminado_en TIMESTAMPTZ NOT NULL
+);
+ALTER TABLE sismos_eliminados ALTER COLUMN secuencia SET DEFAULT nextval('sismos_secuencia_seq');
+ALTER TABLE sismos_eliminados ALTER COLUMN secuencia SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_sismos_eliminados_secuencia ON sismos_eliminados (secuencia);
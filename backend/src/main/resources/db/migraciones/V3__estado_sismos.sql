@@ -0,0 +1,53 @@
+-- Rellena la columna estado de los sismos existentes a partir de la abreviatura
+-- que sigue a la última coma del lugar (ej: "12 km al SUR de CRUCECITA, OAX").
+-- Los registros nuevos ya la traen calculada desde la ingesta (EstadoMexicano.fromLugar).
+CREATE TEMPORARY TABLE estados_abreviatura (abreviatura VARCHAR(10) PRIMARY KEY, estado VARCHAR(20) NOT NULL)
+    ON COMMIT DROP;
+
+INSERT INTO estados_abreviatura (abreviatura, estado) VALUES
+    ('AGS', 'AGUASCALIENTES'),
+    ('BC', 'BAJA_CALIFORNIA'),
+    ('BCS', 'BAJA_CALIFORNIA_SUR'),
+    ('CAMP', 'CAMPECHE'),
+    ('CHIS', 'CHIAPAS'),
+    ('CHIH', 'CHIHUAHUA'),
+    ('CDMX', 'CIUDAD_DE_MEXICO'),
+    ('COAH', 'COAHUILA'),
+    ('COL', 'COLIMA'),
+    ('DGO', 'DURANGO'),
+    ('MEX', 'ESTADO_DE_MEXICO'),
+    ('GTO', 'GUANAJUATO'),
+    ('GRO', 'GUERRERO'),
+    ('HGO', 'HIDALGO'),
+    ('JAL', 'JALISCO'),
+    ('MICH', 'MICHOACAN'),
+    ('MOR', 'MORELOS'),
+    ('NAY', 'NAYARIT'),
+    ('NL', 'NUEVO_LEON'),
+    ('OAX', 'OAXACA'),
+    ('PUE', 'PUEBLA'),
+    ('QRO', 'QUERETARO'),
+    ('QROO', 'QUINTANA_ROO'),
+    ('SLP', 'SAN_LUIS_POTOSI'),
+    ('SIN', 'SINALOA'),
+    ('SON', 'SONORA'),
+    ('TAB', 'TABASCO'),
+    ('TAMPS', 'TAMAULIPAS'),
+    ('TLAX', 'TLAXCALA'),
+    ('VER', 'VERACRUZ'),
+    ('YUC', 'YUCATAN'),
+    ('ZAC', 'ZACATECAS');
+
+UPDATE sismos s
+SET estado = e.estado
+FROM estados_abreviatura e
+WHERE s.estado IS NULL
+  AND position(',' IN s.lugar) > 0
+  AND upper(trim(regexp_replace(s.lugar, '^.*,', ''))) = e.abreviatura;
+
+UPDATE sismosh h
+SET estado = e.estado
+FROM estados_abreviatura e
+WHERE h.estado IS NULL
+  AND position(',' IN h.referencia_localizacion) > 0
+  AND upper(trim(regexp_replace(h.referencia_localizacion, '^.*,', ''))) = e.abreviatura;
@@ -0,0 +1,23 @@
+-- Índices según la forma de las consultas de SismoSpecification + PaginacionKeyset:
+--   WHERE [estado = ?] [AND magnitud BETWEEN ?] [AND fecha_hora BETWEEN ?] [AND profundidad_km BETWEEN ?]
+--         [AND (fecha_hora, id) < cursor]
+--   ORDER BY fecha_hora DESC, id DESC LIMIT n
+-- El orden siempre es (fecha_hora, id), así que cada índice termina en esas columnas para que el LIMIT
+-- corte el recorrido sin ordenar. Las columnas de igualdad (estado) van primero; los rangos de magnitud
+-- y profundidad se evalúan como filtro sobre ese recorrido.
+-- Análisis y benchmark (pendiente de ejecutar contra PostgreSQL): backend/benchmark/indices_filtros.sql
+-- Los índices parciales de magnitud >= 4 que creaba esta versión se quitaron sin medirse (ver V8).
+
+-- Estado + orden: reemplaza a (estado, fecha_hora), que obligaba a ordenar por id los empates
+CREATE INDEX IF NOT EXISTS idx_sismos_estado_fecha_hora_id ON sismos (estado, fecha_hora, id);
+DROP INDEX IF EXISTS idx_sismos_estado_fecha_hora;
+
+CREATE INDEX IF NOT EXISTS idx_sismoh_estado_fecha_hora_id ON sismosh (estado, fecha_hora, id);
+DROP INDEX IF EXISTS idx_sismoh_estado_fecha_hora;
+
+-- sismosh se carga en orden cronológico: un BRIN sobre fecha_hora ocupa unos KB y cubre los rangos
+-- amplios de los reportes (meses o años), donde el B-tree no ahorra lecturas frente al recorrido por bloques
+CREATE INDEX IF NOT EXISTS brin_sismoh_fecha_hora ON sismosh USING brin (fecha_hora) WITH (pages_per_range = 32);
+
+ANALYZE sismos;
+ANALYZE sismosh;
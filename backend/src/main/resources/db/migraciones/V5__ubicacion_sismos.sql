@@ -0,0 +1,4 @@
+-- Índice espacial para la vista de mapa (SismoRepositoryImpl.agruparEnCeldas / buscarEnRectangulo).
+-- Usa los tipos geométricos nativos de PostgreSQL (point/box con GiST), sin depender de PostGIS;
+-- las consultas deben usar la misma expresión: point(longitud, latitud) <@ box(...)
+CREATE INDEX IF NOT EXISTS gist_sismos_ubicacion ON sismos USING gist (point(longitud, latitud));
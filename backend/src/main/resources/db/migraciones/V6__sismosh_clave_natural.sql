@@ -0,0 +1,15 @@
+-- Elimina los duplicados que dejaron las importaciones repetidas del catálogo (conserva el id menor)
+-- antes de crear el índice único; las importaciones insertan con ON CONFLICT DO NOTHING sobre él
+DELETE FROM sismosh a
+USING sismosh b
+WHERE a.fecha_hora = b.fecha_hora
+  AND a.latitud = b.latitud
+  AND a.longitud = b.longitud
+  AND a.magnitud = b.magnitud
+  AND a.id > b.id;
+
+-- Si Hibernate ya creó el índice con este nombre (tabla sin duplicados), no hace nada
+CREATE UNIQUE INDEX IF NOT EXISTS uk_sismosh_clave_natural
+    ON sismosh (fecha_hora, latitud, longitud, magnitud);
+
+ANALYZE sismosh;
@@ -0,0 +1,4 @@
+-- (fecha_hora) es prefijo de (fecha_hora, id): el índice compuesto atiende los mismos rangos y órdenes,
+-- así que el simple solo cuesta escrituras y espacio. Las entidades ya no lo declaran.
+DROP INDEX IF EXISTS idx_fecha_hora;
+DROP INDEX IF EXISTS idx_sismoh_fecha_hora;
@@ -0,0 +1,6 @@
+-- V4 creaba índices parciales (fecha_hora, id) WHERE magnitud >= 4 sin medir si las consultas los usan:
+-- la magnitud llega como parámetro y con un plan genérico PostgreSQL no puede elegirlos. Se quitan hasta
+-- que backend/benchmark/indices_filtros.sql muestre un plan que los use; los filtros de magnitud
+-- recorren (fecha_hora, id) y evalúan la magnitud como filtro.
+DROP INDEX IF EXISTS idx_sismos_sensibles_fecha_hora_id;
+DROP INDEX IF EXISTS idx_sismoh_sensibles_fecha_hora_id;
@@ -0,0 +1,46 @@
+package ipn.mx.isc.sismosapp.backend.model.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorPaginaTest {
+
+    @Test
+    void decodificaLoQueCodifica() {
+        CursorPagina cursor = new CursorPagina(OffsetDateTime.parse("2026-10-17T10:15:30.123-06:00"), "SSN-2026|17");
+
+        String texto = cursor.codificar();
+
+        assertThat(texto).doesNotContain("=", "+", "/");
+        assertThat(CursorPagina.decodificar(texto)).isEqualTo(cursor);
+    }
+
+    @Test
+    void sinCursorEsLaPrimeraPagina() {
+        assertThat(CursorPagina.decodificar(null)).isNull();
+        assertThat(CursorPagina.decodificar("  ")).isNull();
+    }
+
+    @Test
+    void rechazaCursoresInvalidos() {
+        assertThatThrownBy(() -> CursorPagina.decodificar("no es base64!"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorPagina.decodificar(base64("2026-10-17T10:15:30Z")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorPagina.decodificar(base64("2026-10-17T10:15:30Z|")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorPagina.decodificar(base64("ayer|SSN-1")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Cursor de paginación inválido");
+    }
+
+    private static String base64(String valor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,150 @@
+package ipn.mx.isc.sismosapp.backend.repository;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.PushOutbox;
+import ipn.mx.isc.sismosapp.backend.model.enums.EstadoPush;
+import ipn.mx.isc.sismosapp.backend.model.enums.TipoPush;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reclamo y lease de push_outbox contra PostgreSQL (FOR UPDATE SKIP LOCKED y now() no existen en H2).
+ * Sin transacción de prueba: cada llamada confirma como en los workers.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class PushOutboxRepositoryTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PushOutboxRepository pushOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void limpiar() {
+        pushOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void unEnvioReclamadoNoSeVuelveATomarMientrasSuLeaseEsteVigente() {
+        insertar(OffsetDateTime.now().minusMinutes(1));
+        insertar(OffsetDateTime.now().minusMinutes(1));
+        insertar(OffsetDateTime.now().minusMinutes(1));
+
+        List<PushOutbox> primeros = pushOutboxRepository.reclamarPendientes(2, LEASE);
+        List<PushOutbox> resto = pushOutboxRepository.reclamarPendientes(10, LEASE);
+
+        assertThat(primeros).hasSize(2).allSatisfy(envio -> {
+            assertThat(envio.getEstado()).isEqualTo(EstadoPush.PROCESANDO);
+            assertThat(envio.getIntentos()).isEqualTo(1);
+            assertThat(envio.getReclamo()).isEqualTo(primeros.get(0).getReclamo());
+        });
+        assertThat(resto).hasSize(1);
+        assertThat(resto.get(0).getReclamo()).isNotEqualTo(primeros.get(0).getReclamo());
+        assertThat(pushOutboxRepository.reclamarPendientes(10, LEASE)).isEmpty();
+    }
+
+    @Test
+    void noReclamaEnviosConReintentoFuturo() {
+        insertar(OffsetDateTime.now().plusMinutes(10));
+
+        assertThat(pushOutboxRepository.reclamarPendientes(10, LEASE)).isEmpty();
+    }
+
+    @Test
+    void lasFilasBloqueadasPorOtroReclamoSeSaltan() {
+        insertar(OffsetDateTime.now().minusMinutes(1));
+        insertar(OffsetDateTime.now().minusMinutes(1));
+        insertar(OffsetDateTime.now().minusMinutes(1));
+
+        // El primer reclamo no confirma mientras el segundo corre en otra conexión
+        List<List<PushOutbox>> reclamos = new TransactionTemplate(transactionManager).execute(estado -> {
+            List<PushOutbox> primero = pushOutboxRepository.reclamarPendientes(2, LEASE);
+            List<PushOutbox> segundo = CompletableFuture
+                .supplyAsync(() -> pushOutboxRepository.reclamarPendientes(10, LEASE))
+                .join();
+            return List.of(primero, segundo);
+        });
+
+        assertThat(reclamos.get(0)).hasSize(2);
+        assertThat(reclamos.get(1)).hasSize(1);
+        assertThat(reclamos.get(1).get(0).getId())
+            .isNotIn(reclamos.get(0).stream().map(PushOutbox::getId).toList());
+    }
+
+    @Test
+    void unReclamoPosteriorInvalidaLasActualizacionesDelAnterior() {
+        Long id = insertar(OffsetDateTime.now().minusMinutes(1));
+        String anterior = pushOutboxRepository.reclamarPendientes(1, LEASE).get(0).getReclamo();
+
+        assertThat(pushOutboxRepository.renovarLease(id, anterior, OffsetDateTime.now().plus(LEASE))).isEqualTo(1);
+
+        // El worker se detuvo y su lease venció
+        jdbcTemplate.update("UPDATE push_outbox SET bloqueado_hasta = now() - interval '1 minute' WHERE id = ?", id);
+        PushOutbox retomado = pushOutboxRepository.reclamarPendientes(1, LEASE).get(0);
+
+        assertThat(retomado.getId()).isEqualTo(id);
+        assertThat(retomado.getIntentos()).isEqualTo(2);
+        assertThat(retomado.getReclamo()).isNotEqualTo(anterior);
+        assertThat(pushOutboxRepository.renovarLease(id, anterior, OffsetDateTime.now().plus(LEASE))).isZero();
+        assertThat(pushOutboxRepository.marcarEnviado(id, anterior, OffsetDateTime.now())).isZero();
+        assertThat(pushOutboxRepository.reprogramar(id, anterior, OffsetDateTime.now(), "error")).isZero();
+        assertThat(pushOutboxRepository.marcarFallido(id, anterior, "error")).isZero();
+
+        assertThat(pushOutboxRepository.marcarEnviado(id, retomado.getReclamo(), OffsetDateTime.now())).isEqualTo(1);
+        assertThat(pushOutboxRepository.findById(id).orElseThrow().getEstado()).isEqualTo(EstadoPush.ENVIADO);
+        assertThat(pushOutboxRepository.reclamarPendientes(1, LEASE)).isEmpty();
+    }
+
+    @Test
+    void unEnvioReprogramadoVuelveAReclamarseCuandoVenceSuReintento() {
+        Long id = insertar(OffsetDateTime.now().minusMinutes(1));
+        String reclamo = pushOutboxRepository.reclamarPendientes(1, LEASE).get(0).getReclamo();
+
+        assertThat(pushOutboxRepository.reprogramar(id, reclamo, OffsetDateTime.now().plusMinutes(10), "UNAVAILABLE")).isEqualTo(1);
+        assertThat(pushOutboxRepository.reclamarPendientes(1, LEASE)).isEmpty();
+
+        jdbcTemplate.update("UPDATE push_outbox SET siguiente_intento = now() - interval '1 second' WHERE id = ?", id);
+        assertThat(pushOutboxRepository.reclamarPendientes(1, LEASE))
+            .singleElement()
+            .satisfies(envio -> assertThat(envio.getIntentos()).isEqualTo(2));
+    }
+
+    private Long insertar(OffsetDateTime siguienteIntento) {
+        PushOutbox envio = new PushOutbox();
+        envio.setTipo(TipoPush.DATOS);
+        envio.setPayload("[]");
+        envio.setSiguienteIntento(siguienteIntento);
+        return pushOutboxRepository.save(envio).getId();
+    }
+}
@@ -0,0 +1,77 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ipn.mx.isc.sismosapp.backend.model.dto.SismoDTO;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadSismosTest {
+
+    // Como el ObjectMapper de Spring Boot: fechas ISO 8601
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void reparteLosSismosEnMensajesBajoElLimite() throws Exception {
+        List<SismoDTO> sismos = sismos(120);
+
+        List<Map<String, String>> mensajes = PayloadSismos.empaquetar(sismos, objectMapper);
+
+        assertThat(mensajes).hasSizeGreaterThan(1);
+        List<String> ids = new ArrayList<>();
+        for (Map<String, String> mensaje : mensajes) {
+            assertThat(mensaje).containsEntry(PayloadSismos.CLAVE_VERSION, PayloadSismos.VERSION);
+            String valor = mensaje.get(PayloadSismos.CLAVE_SISMOS);
+            assertThat(valor.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(PayloadSismos.LIMITE_BYTES);
+            for (JsonNode sismo : objectMapper.readTree(valor)) {
+                ids.add(sismo.get(0).asText());
+            }
+        }
+        // Todos los sismos, una sola vez y en el orden original
+        assertThat(ids).containsExactlyElementsOf(sismos.stream().map(SismoDTO::getId).toList());
+    }
+
+    @Test
+    void codificaCadaSismoComoArregloPosicional() throws Exception {
+        SismoDTO sismo = sismos(1).get(0);
+
+        JsonNode campos = objectMapper.readTree(
+            PayloadSismos.empaquetarPrimeros(List.of(sismo), objectMapper).get(PayloadSismos.CLAVE_SISMOS)
+        ).get(0);
+
+        assertThat(campos).hasSize(8);
+        assertThat(campos.get(0).asText()).isEqualTo(sismo.getId());
+        assertThat(OffsetDateTime.parse(campos.get(1).asText()).isEqual(sismo.getFechaHora())).isTrue();
+        assertThat(campos.get(4).asDouble()).isEqualTo(sismo.getMagnitud());
+        assertThat(campos.get(6).asText()).isEqualTo(sismo.getLugar());
+        assertThat(campos.get(7).asText()).isEqualTo("SSN");
+    }
+
+    @Test
+    void sinSismosEmpaquetaUnArregloVacio() {
+        assertThat(PayloadSismos.empaquetar(List.of(), objectMapper)).isEmpty();
+        assertThat(PayloadSismos.empaquetarPrimeros(List.of(), objectMapper))
+            .containsEntry(PayloadSismos.CLAVE_SISMOS, "[]");
+    }
+
+    private static List<SismoDTO> sismos(int cantidad) {
+        List<SismoDTO> sismos = new ArrayList<>();
+        OffsetDateTime inicio = OffsetDateTime.parse("2026-10-17T08:00:00-06:00");
+        for (int i = 0; i < cantidad; i++) {
+            sismos.add(new SismoDTO(
+                "SSN-" + i, inicio.minusMinutes(i), 16.2 + i * 0.01, -98.1 - i * 0.01, 3.5 + (i % 20) / 10.0,
+                10.0 + i % 50, (i % 90 + 5) + " km al SURESTE de PINOTEPA NACIONAL, OAXACA", "SSN"
+            ));
+        }
+        return sismos;
+    }
+}
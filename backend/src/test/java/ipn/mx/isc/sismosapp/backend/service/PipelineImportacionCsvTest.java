@@ -0,0 +1,105 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import ipn.mx.isc.sismosapp.backend.model.entities.SismoH;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineImportacionCsvTest {
+
+    // Una fila válida tiene la magnitud en la primera columna; cualquier otra cosa se omite
+    private static final Function<String[], SismoH> CONVERSION = row -> {
+        if (row.length == 0 || row[0].equals("omitir")) {
+            return null;
+        }
+        SismoH sismo = new SismoH();
+        sismo.setMagnitud(Double.parseDouble(row[0]));
+        return sismo;
+    };
+
+    @Test
+    void saltaLaCabeceraYCuentaLasFilasOmitidas() throws IOException {
+        StringBuilder csv = new StringBuilder("Catálogo\nFecha,Hora\n");
+        for (int i = 0; i < 2500; i++) {
+            csv.append(i % 100 == 0 ? "omitir" : i % 100 == 1 ? "no es número" : "4.1").append(",x\n");
+        }
+        PipelineImportacionCsv pipeline = new PipelineImportacionCsv(
+            new StringReader(csv.toString()), 0, 2, 3, CONVERSION
+        );
+
+        List<SismoH> escritas = pipeline.ejecutar(PipelineImportacionCsvTest::recolectar);
+
+        assertThat(escritas).hasSize(2450).allMatch(sismo -> sismo.getMagnitud() == 4.1);
+        assertThat(pipeline.omitidas()).isEqualTo(50);
+    }
+
+    @Test
+    void propagaElErrorDelLector() {
+        PipelineImportacionCsv pipeline = new PipelineImportacionCsv(
+            new FallaDespuesDe("4.0,x\n".repeat(1500)), 0, 0, 2, CONVERSION
+        );
+
+        assertThatThrownBy(() -> pipeline.ejecutar(PipelineImportacionCsvTest::recolectar))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void propagaElErrorDelEscritor() {
+        PipelineImportacionCsv pipeline = new PipelineImportacionCsv(
+            new StringReader("4.0,x\n".repeat(5000)), 0, 0, 2, CONVERSION
+        );
+
+        assertThatThrownBy(() -> pipeline.ejecutar(filas -> {
+            filas.next();
+            throw new IllegalStateException("escritura rechazada");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("escritura rechazada");
+    }
+
+    @Test
+    void requiereAlMenosUnConvertidor() {
+        assertThatThrownBy(() -> new PipelineImportacionCsv(
+            new StringReader(""), 0, 0, 0, CONVERSION
+        )).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<SismoH> recolectar(Iterator<SismoH> filas) {
+        List<SismoH> escritas = new ArrayList<>();
+        filas.forEachRemaining(escritas::add);
+        return escritas;
+    }
+
+    /**
+     * Entrega el texto y luego falla como un disco o una conexión que se corta a mitad del archivo
+     */
+    private static final class FallaDespuesDe extends Reader {
+
+        private final StringReader contenido;
+
+        FallaDespuesDe(String texto) {
+            this.contenido = new StringReader(texto);
+        }
+
+        @Override
+        public int read(char[] destino, int inicio, int longitud) throws IOException {
+            int leidos = contenido.read(destino, inicio, longitud);
+            if (leidos < 0) {
+                throw new IOException("lectura interrumpida");
+            }
+            return leidos;
+        }
+
+        @Override
+        public void close() {
+            contenido.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SsnRowExtractorTest {
+
+    private static final String PAGINA = "/ssn/ultimos-sismos.html";
+
+    @Test
+    void extraeLasMismasFilasQueElDom() throws IOException {
+        String html = leerPagina();
+
+        List<SsnRowExtractor.FilaSsn> enUnaPasada = new ArrayList<>();
+        int filas = SsnRowExtractor.extraer(html, enUnaPasada::add);
+        List<SsnRowExtractor.FilaSsn> conDom = new ArrayList<>();
+        SsnRowExtractor.extraerConDom(Jsoup.parse(html), conDom::add);
+
+        assertThat(filas).isEqualTo(12);
+        assertThat(enUnaPasada).containsExactlyElementsOf(conDom);
+        assertThat(enUnaPasada).allMatch(SsnRowExtractor.FilaSsn::completa);
+    }
+
+    @Test
+    void normalizaEntidadesYEtiquetasInternas() throws IOException {
+        List<SsnRowExtractor.FilaSsn> filas = new ArrayList<>();
+        SsnRowExtractor.extraer(leerPagina(), filas::add);
+
+        // Fila con atributos sin comillas, <strong>, <a> y &nbsp;
+        SsnRowExtractor.FilaSsn resaltada = filas.get(3);
+        assertThat(resaltada.magnitud()).isEqualTo("3.6");
+        assertThat(resaltada.lugar()).isEqualTo("20 km al SURESTE de SAN MARCOS, GRO");
+        assertThat(resaltada.profundidad()).isEqualTo("20 km");
+        assertThat(filas.get(4).lugar()).isEqualTo("41 km al OESTE de TONALÁ, CHIS");
+        assertThat(filas.get(8).lugar()).isEqualTo("22 km al SUROESTE de CIHUATLÁN, JAL");
+    }
+
+    @Test
+    void soloLasEtiquetasDeBloqueSeparanElTexto() {
+        String html = "<table><tr class=\"1days\">"
+            + "<td class=\"latest-mag\">4<param name=\"x\">.2</td>"
+            + "<td><span id=\"date_1\">2026-10-17</span><span id=\"time_1\">10:00:00</span></td>"
+            + "<td><span id=\"epi_1\">10 km al<br>SUR de<picture></picture>COLIMA</span>"
+            + "<span id=\"lat_1\">19.1</span><span id=\"lon_1\">-103.7</span></td>"
+            + "<td id=\"prof_1\">10<pre>km</pre></td>"
+            + "</tr></table>";
+
+        List<SsnRowExtractor.FilaSsn> enUnaPasada = new ArrayList<>();
+        SsnRowExtractor.extraer(html, enUnaPasada::add);
+        List<SsnRowExtractor.FilaSsn> conDom = new ArrayList<>();
+        SsnRowExtractor.extraerConDom(Jsoup.parse(html), conDom::add);
+
+        assertThat(enUnaPasada).containsExactlyElementsOf(conDom);
+        assertThat(enUnaPasada.get(0).magnitud()).isEqualTo("4.2");
+        assertThat(enUnaPasada.get(0).lugar()).isEqualTo("10 km al SUR deCOLIMA");
+        assertThat(enUnaPasada.get(0).profundidad()).isEqualTo("10 km");
+    }
+
+    @Test
+    void marcaComoIncompletaUnaFilaSinCeldas() {
+        String html = "<table><tr class=\"2days\"><td class=\"latest-mag\">4.0</td>"
+            + "<td><div id=\"date_1\">2026-10-17</div></td></tr></table>";
+
+        List<SsnRowExtractor.FilaSsn> filas = new ArrayList<>();
+        int encontradas = SsnRowExtractor.extraer(html, filas::add);
+
+        assertThat(encontradas).isEqualTo(1);
+        assertThat(filas.get(0).completa()).isFalse();
+    }
+
+    private String leerPagina() throws IOException {
+        try (InputStream entrada = getClass().getResourceAsStream(PAGINA)) {
+            assertThat(entrada).isNotNull();
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
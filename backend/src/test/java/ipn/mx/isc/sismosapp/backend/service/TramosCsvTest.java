@@ -0,0 +1,90 @@
+package ipn.mx.isc.sismosapp.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TramosCsvTest {
+
+    // El segundo registro tiene un salto de línea y comillas escapadas dentro de un campo
+    private static final String CSV = """
+        2026-10-17,4.1,"12 km al SUR de PINOTEPA NACIONAL, OAX"
+        2026-10-17,3.8,"Réplica ""fuerte""
+        sentida en la costa"
+        2026-10-16,4.5,"30 km al NORTE de TONALÁ, CHIS"
+        2026-10-16,3.9,"8 km al OESTE de COLIMA, COL"
+        2026-10-15,4.0,"15 km al SUROESTE de OMETEPEC, GRO"
+        """;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void cortaLosTramosSoloEnSaltosDeLineaFueraDeComillas() throws IOException {
+        Path archivo = escribir(CSV);
+
+        List<String> tramos = new ArrayList<>();
+        List<Long> lineas = new ArrayList<>();
+        try (TramosCsv lector = new TramosCsv(archivo, 0, 0)) {
+            while (lector.hayMas()) {
+                tramos.add(leer(lector.siguiente(2)));
+                lineas.add(lector.lineas());
+            }
+            assertThat(lector.offset()).isEqualTo(Files.size(archivo));
+        }
+
+        assertThat(tramos).hasSize(3);
+        assertThat(tramos.get(0)).endsWith("sentida en la costa\"\n").contains("\"\"fuerte\"\"\n");
+        assertThat(tramos.get(1)).startsWith("2026-10-16,4.5").endsWith("COLIMA, COL\"\n");
+        assertThat(tramos.get(2)).isEqualTo("2026-10-15,4.0,\"15 km al SUROESTE de OMETEPEC, GRO\"\n");
+        assertThat(String.join("", tramos)).isEqualTo(CSV);
+        assertThat(lineas).containsExactly(2L, 4L, 5L);
+    }
+
+    @Test
+    void seReanudaDesdeElPuntoGuardado() throws IOException {
+        Path archivo = escribir(CSV);
+
+        long offset;
+        long lineas;
+        try (TramosCsv lector = new TramosCsv(archivo, 0, 0)) {
+            leer(lector.siguiente(2));
+            offset = lector.offset();
+            lineas = lector.lineas();
+        }
+
+        try (TramosCsv lector = new TramosCsv(archivo, offset, lineas)) {
+            assertThat(leer(lector.siguiente(10))).isEqualTo(CSV.substring(CSV.indexOf("2026-10-16")));
+            assertThat(lector.lineas()).isEqualTo(5);
+            assertThat(lector.hayMas()).isFalse();
+        }
+    }
+
+    @Test
+    void cuentaElUltimoRegistroSinSaltoDeLineaComoParteDelTramo() throws IOException {
+        Path archivo = escribir("a,1\nb,2");
+
+        try (TramosCsv lector = new TramosCsv(archivo, 0, 0)) {
+            assertThat(leer(lector.siguiente(5))).isEqualTo("a,1\nb,2");
+            assertThat(lector.offset()).isEqualTo(7);
+            assertThat(lector.hayMas()).isFalse();
+        }
+    }
+
+    private Path escribir(String contenido) throws IOException {
+        return Files.writeString(directorio.resolve("importacion.csv"), contenido, StandardCharsets.UTF_8);
+    }
+
+    private static String leer(InputStream tramo) throws IOException {
+        return new String(tramo.readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
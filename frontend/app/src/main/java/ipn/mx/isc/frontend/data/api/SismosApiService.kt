@@ -2,6 +2,7 @@ package ipn.mx.isc.frontend.data.api
 
 import ipn.mx.isc.frontend.data.model.Sismo
 import ipn.mx.isc.frontend.data.model.SismoFilter
+import ipn.mx.isc.frontend.data.model.SincronizacionSismos
 import retrofit2.http.Body
 import retrofit2.http.GET
 import retrofit2.http.POST
@@ -15,6 +16,12 @@ interface SismosApiService {
         @Query("size") size: Int = 100
     ): List<Sismo>
     
+    @GET("api/sismos/since")
+    suspend fun obtenerCambios(
+        @Query("cursor") cursor: Long? = null,
+        @Query("limite") limite: Int? = null
+    ): SincronizacionSismos
+    
     @POST("api/sismos/filtrar")
     suspend fun filtrarSismos(
         @Body filtros: SismoFilter
@@ -0,0 +1,20 @@
+package ipn.mx.isc.frontend.data.model
+
+import com.google.gson.annotations.SerializedName
+
+data class SincronizacionSismos(
+    @SerializedName("sismos")
+    val sismos: List<Sismo>,
+
+    @SerializedName("eliminados")
+    val eliminados: List<String>,
+
+    @SerializedName("cursor")
+    val cursor: Long,
+
+    @SerializedName("hayMas")
+    val hayMas: Boolean,
+
+    @SerializedName("reiniciar")
+    val reiniciar: Boolean
+)
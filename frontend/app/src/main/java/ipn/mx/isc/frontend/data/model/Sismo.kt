@@ -19,7 +19,7 @@ data class Sismo(
     val magnitud: Double,
     
     @SerializedName("profundidadKm")
-    val profundidadKm: Double,
+    val profundidadKm: Double?,
     
     @SerializedName("lugar")
     val lugar: String,
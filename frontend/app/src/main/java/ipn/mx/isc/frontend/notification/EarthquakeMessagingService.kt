@@ -2,9 +2,6 @@ package ipn.mx.isc.frontend.notification
 
 import com.google.firebase.messaging.FirebaseMessagingService
 import com.google.firebase.messaging.RemoteMessage
-import com.google.gson.Gson
-import com.google.gson.reflect.TypeToken
-import ipn.mx.isc.frontend.data.model.Sismo
 import ipn.mx.isc.frontend.notification.NotificationUtils.showNotification
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
@@ -14,7 +11,6 @@ import kotlinx.coroutines.launch
 
 class EarthquakeMessagingService : FirebaseMessagingService() {
 
-    private val gson = Gson()
     private val serviceScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
 
     override fun onNewToken(token: String) {
@@ -25,10 +21,9 @@ class EarthquakeMessagingService : FirebaseMessagingService() {
     override fun onMessageReceived(message: RemoteMessage) {
         super.onMessageReceived(message)
 
-        // Manejar mensajes data (nuevos sismos en tiempo real)
-        if (message.data.isNotEmpty() && message.data.containsKey("sismos")) {
-            handleSismosDataMessage(message.data["sismos"] ?: "")
-            return
+        // Manejar mensajes data (nuevos sismos en tiempo real); las alertas también traen sus sismos
+        if (message.data.isNotEmpty()) {
+            handleSismosDataMessage(message.data)
         }
 
         // Manejar notificaciones de sismos críticos
@@ -37,10 +32,10 @@ class EarthquakeMessagingService : FirebaseMessagingService() {
         }
     }
 
-    private fun handleSismosDataMessage(sismosJson: String) {
+    private fun handleSismosDataMessage(data: Map<String, String>) {
         try {
-            val listType = object : TypeToken<List<Sismo>>() {}.type
-            val sismos: List<Sismo> = gson.fromJson(sismosJson, listType)
+            val sismos = SismosPayload.decodificar(data)
+            if (sismos.isEmpty()) return
             
             // Emitir sismos al ViewModel vía broadcast
             serviceScope.launch {
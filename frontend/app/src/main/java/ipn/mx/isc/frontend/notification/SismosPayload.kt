@@ -0,0 +1,43 @@
+package ipn.mx.isc.frontend.notification
+
+import com.google.gson.Gson
+import com.google.gson.JsonArray
+import com.google.gson.JsonParser
+import com.google.gson.reflect.TypeToken
+import ipn.mx.isc.frontend.data.model.Sismo
+
+/**
+ * Decodifica los sismos que llegan en mensajes FCM.
+ * Formato compacto (v = "1"): clave "s" con arreglos posicionales
+ * [id, fechaHora, latitud, longitud, magnitud, profundidadKm, lugar, fuente].
+ * También acepta la clave "sismos" con la lista completa de objetos (formato anterior).
+ */
+object SismosPayload {
+
+    private val gson = Gson()
+
+    fun decodificar(data: Map<String, String>): List<Sismo> {
+        data["s"]?.let { return decodificarCompacto(it) }
+        data["sismos"]?.let {
+            val listType = object : TypeToken<List<Sismo>>() {}.type
+            return gson.fromJson(it, listType)
+        }
+        return emptyList()
+    }
+
+    private fun decodificarCompacto(json: String): List<Sismo> {
+        return JsonParser.parseString(json).asJsonArray.map { elemento ->
+            val campos: JsonArray = elemento.asJsonArray
+            Sismo(
+                id = campos[0].asString,
+                fechaHora = campos[1].asString,
+                latitud = campos[2].asDouble,
+                longitud = campos[3].asDouble,
+                magnitud = campos[4].asDouble,
+                profundidadKm = campos[5].takeUnless { it.isJsonNull }?.asDouble,
+                lugar = campos[6].asString,
+                fuente = campos[7].asString
+            )
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ipn.mx.isc.frontend.notification
+
+import android.util.Log
+import com.google.gson.Gson
+import com.google.gson.reflect.TypeToken
+import ipn.mx.isc.frontend.BuildConfig
+import ipn.mx.isc.frontend.data.model.Sismo
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.sse.EventSource
+import okhttp3.sse.EventSourceListener
+import okhttp3.sse.EventSources
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Cliente SSE de /api/sismos/stream.
+ * Emite los sismos nuevos en SismosDataBroadcast (igual que FCM) y se reconecta
+ * con Last-Event-ID para no perder eventos. Reemplaza el sondeo periódico de /api/sismos.
+ */
+object SismosStreamClient {
+
+    private const val TAG = "SismosStreamClient"
+    private const val ESPERA_INICIAL_MS = 1_000L
+    private const val ESPERA_MAXIMA_MS = 60_000L
+
+    private val gson = Gson()
+    private val listType = object : TypeToken<List<Sismo>>() {}.type
+
+    // El servidor envía un heartbeat cada 15 s; sin datos en 45 s la conexión se da por perdida
+    private val client = OkHttpClient.Builder()
+        .connectTimeout(30, TimeUnit.SECONDS)
+        .readTimeout(45, TimeUnit.SECONDS)
+        .build()
+
+    /**
+     * Mantiene la conexión abierta mientras el scope esté activo.
+     * onReinicio se invoca cuando el servidor ya no tiene los eventos perdidos y hay que recargar la lista.
+     */
+    fun conectar(scope: CoroutineScope, onReinicio: () -> Unit): Job = scope.launch(Dispatchers.IO) {
+        val url = BuildConfig.BACKEND_URL.toHttpUrl().resolve("api/sismos/stream") ?: return@launch
+        val ultimoId = AtomicReference<String?>(null)
+        var espera = ESPERA_INICIAL_MS
+
+        while (isActive) {
+            val cerrado = CompletableDeferred<Unit>()
+            val abierto = AtomicBoolean(false)
+
+            val request = Request.Builder()
+                .url(url)
+                .apply { ultimoId.get()?.let { header("Last-Event-ID", it) } }
+                .build()
+
+            val eventSource = EventSources.createFactory(client).newEventSource(request, object : EventSourceListener() {
+                override fun onOpen(eventSource: EventSource, response: Response) {
+                    abierto.set(true)
+                }
+
+                override fun onEvent(eventSource: EventSource, id: String?, type: String?, data: String) {
+                    if (id != null) {
+                        ultimoId.set(id)
+                    }
+                    when (type) {
+                        "sismos" -> {
+                            try {
+                                val sismos: List<Sismo> = gson.fromJson(data, listType)
+                                scope.launch { SismosDataBroadcast.emitirSismos(sismos) }
+                            } catch (e: Exception) {
+                                Log.e(TAG, "Evento de sismos inválido", e)
+                            }
+                        }
+                        "reinicio" -> onReinicio()
+                    }
+                }
+
+                override fun onClosed(eventSource: EventSource) {
+                    cerrado.complete(Unit)
+                }
+
+                override fun onFailure(eventSource: EventSource, t: Throwable?, response: Response?) {
+                    Log.w(TAG, "Conexión SSE perdida: ${t?.message ?: response?.code}")
+                    cerrado.complete(Unit)
+                }
+            })
+
+            try {
+                cerrado.await()
+            } finally {
+                eventSource.cancel()
+            }
+
+            espera = if (abierto.get()) ESPERA_INICIAL_MS else (espera * 2).coerceAtMost(ESPERA_MAXIMA_MS)
+            delay(espera)
+        }
+    }
+}
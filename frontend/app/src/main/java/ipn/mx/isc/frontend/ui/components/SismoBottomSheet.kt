@@ -142,7 +142,9 @@ fun SismoBottomSheet(
             InfoRow(
                 icon = Icons.Default.Layers,
                 label = "Profundidad",
-                value = "${String.format(Locale.US, "%.0f", sismo.profundidadKm)} km",
+                value = sismo.profundidadKm
+                    ?.let { "${String.format(Locale.US, "%.0f", it)} km" }
+                    ?: "No disponible",
                 iconTint = MaterialTheme.colorScheme.primary
             )
             
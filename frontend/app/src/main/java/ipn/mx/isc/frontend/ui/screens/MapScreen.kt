@@ -86,14 +86,13 @@ fun MapScreen(
     val filtroActual by viewModel.filtroActual.collectAsState()
     val estados by viewModel.estados.collectAsState()
     
-    // Carga inicial
+    // Carga inicial y stream SSE de sismos nuevos mientras el mapa está visible
     LaunchedEffect(visible) {
         if (visible) {
             viewModel.cargarSismos()
-            while (true) {
-                kotlinx.coroutines.delay(180000)
-                viewModel.cargarSismos()
-            }
+            viewModel.iniciarStream()
+        } else {
+            viewModel.detenerStream()
         }
     }
 
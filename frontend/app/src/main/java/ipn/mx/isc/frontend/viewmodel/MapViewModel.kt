@@ -8,6 +8,8 @@ import ipn.mx.isc.frontend.data.model.EstadoMexicano
 import ipn.mx.isc.frontend.data.model.Sismo
 import ipn.mx.isc.frontend.data.model.SismoFilter
 import ipn.mx.isc.frontend.notification.SismosDataBroadcast
+import ipn.mx.isc.frontend.notification.SismosStreamClient
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
@@ -41,12 +43,18 @@ class MapViewModel : ViewModel() {
     private val _estados = MutableStateFlow(EstadoMexicano.obtenerTodos())
     val estados: StateFlow<List<EstadoMexicano>> = _estados.asStateFlow()
     
+    private var streamJob: Job? = null
+    
+    // Cursor de /api/sismos/since; null cuando la lista no corresponde a la vista por defecto
+    private var cursorSincronizacion: Long? = null
+    
     init {
         suscribirseAFcmData()
     }
     
     /**
-     * Carga inicial: obtiene datos existentes del servidor
+     * Carga inicial y recargas: la primera vez obtiene los recientes del servidor,
+     * después solo los cambios desde el último cursor
      */
     fun cargarSismos() {
         viewModelScope.launch {
@@ -54,11 +62,7 @@ class MapViewModel : ViewModel() {
             _error.value = null
             
             try {
-                val resultado = RetrofitClient.sismosApiService.obtenerSismos(
-                    page = 0,
-                    size = 100
-                )
-                _sismos.value = resultado
+                sincronizar()
             } catch (e: Exception) {
                 _error.value = "Error al cargar sismos"
             } finally {
@@ -68,7 +72,43 @@ class MapViewModel : ViewModel() {
     }
     
     /**
-     * Suscribirse a actualizaciones de sismos vía FCM data messaging
+     * Aplica los cambios del servidor página por página hasta alcanzar el cursor actual
+     */
+    private suspend fun sincronizar() {
+        do {
+            val cursor = cursorSincronizacion
+            val cambios = RetrofitClient.sismosApiService.obtenerCambios(cursor)
+            if (cursor == null || cambios.reiniciar) {
+                _sismos.value = cambios.sismos
+            } else {
+                val eliminados = cambios.eliminados.toSet()
+                val vigentes = _sismos.value.filterNot { it.id in eliminados }
+                _sismos.value = fusionarSismos(cambios.sismos, vigentes)
+            }
+            cursorSincronizacion = cambios.cursor
+        } while (cambios.hayMas)
+    }
+    
+    /**
+     * Abre el stream SSE de sismos nuevos (reemplaza el sondeo periódico)
+     */
+    fun iniciarStream() {
+        if (streamJob?.isActive == true) return
+        streamJob = SismosStreamClient.conectar(viewModelScope) {
+            // El servidor perdió el rastro de los eventos: recargar la vista por defecto
+            if (!_filtrosActivos.value) {
+                cargarSismos()
+            }
+        }
+    }
+    
+    fun detenerStream() {
+        streamJob?.cancel()
+        streamJob = null
+    }
+    
+    /**
+     * Suscribirse a actualizaciones de sismos vía FCM data messaging y SSE
      */
     private fun suscribirseAFcmData() {
         viewModelScope.launch {
@@ -106,6 +146,8 @@ class MapViewModel : ViewModel() {
             _error.value = null
             _filtroActual.value = filtros
             _filtrosActivos.value = filtros.tieneFiltrosActivos()
+            // La lista deja de ser la vista por defecto; al limpiar filtros se recarga completa
+            cursorSincronizacion = null
             
             try {
                 val resultado = RetrofitClient.sismosApiService.filtrarSismos(filtros)